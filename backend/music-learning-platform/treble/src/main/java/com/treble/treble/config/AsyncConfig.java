@@ -0,0 +1,102 @@
+package com.treble.treble.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${app.timeline.fanout-threads:4}")
+    private int timelineThreads;
+
+    @Value("${app.timeline.fanout-queue-capacity:10000}")
+    private int timelineQueueCapacity;
+
+    @Value("${app.export.threads:4}")
+    private int exportThreads;
+
+    @Value("${app.notifications.workers:2}")
+    private int notificationWorkers;
+
+    // The executors below make Boot's own applicationTaskExecutor back off; without this one, MVC
+    // async requests and unqualified @Async methods would start a new thread per task
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = "timelineExecutor")
+    public ThreadPoolTaskExecutor timelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(timelineThreads);
+        executor.setMaxPoolSize(timelineThreads);
+        executor.setQueueCapacity(timelineQueueCapacity);
+        executor.setThreadNamePrefix("timeline-");
+        // Fall back to running on the caller when the queue is full rather than dropping fan-out work
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs export tasks; the bounded pool also caps how many exports hold a DB connection at once
+    @Bean(name = "exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportThreads);
+        executor.setMaxPoolSize(exportThreads);
+        executor.setQueueCapacity(exportThreads * 4);
+        executor.setThreadNamePrefix("export-");
+        executor.initialize();
+        return executor;
+    }
+
+    // One long-running batch writer per thread; the notification queue itself lives in NotificationPipeline
+    @Bean(name = "notificationExecutor")
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationWorkers);
+        executor.setMaxPoolSize(notificationWorkers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("notifications-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Notification retention pauses between chunks; it must never sleep on the shared scheduler thread
+    @Bean(name = "retentionExecutor")
+    public ThreadPoolTaskExecutor retentionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        // A run still going when the next one fires makes the next one a no-op
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("retention-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Rebuilding the suggestion graph streams and sorts all of user_followers
+    @Bean(name = "suggestionExecutor")
+    public ThreadPoolTaskExecutor suggestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("suggestions-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -30,6 +30,8 @@ public class SecurityConfig {
                                 "/h2-console/**",
                                 "/api/**",
                                 "/api/v1/**",
+                                "/actuator/health",
+                                "/actuator/metrics/**",
                                 "/oauth2/**",
                                 "/login/**",
                                 "/oauth2/authorization/**",
@@ -63,6 +65,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,6 +2,7 @@ package com.treble.treble.controller;
 
 import com.treble.treble.dto.CommentRequest;
 import com.treble.treble.dto.CommentResponse;
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.service.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -33,6 +34,15 @@ public class CommentController {
         return new ResponseEntity<>(comments, HttpStatus.OK);
     }
 
+    @GetMapping("/post/{postId}/page")
+    public ResponseEntity<CursorPage<CommentResponse>> getCommentsPage(
+            @PathVariable Long postId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        CursorPage<CommentResponse> page = commentService.getCommentsPage(postId, after, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CommentResponse> getCommentById(@PathVariable Long id) {
         CommentResponse comment = commentService.getCommentById(id);
@@ -0,0 +1,45 @@
+package com.treble.treble.controller;
+
+import com.treble.treble.util.JsonArrayWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+
+/**
+ * Runs export endpoints as async tasks on the bounded export executor with the export
+ * timeout. Other async requests keep the MVC defaults.
+ */
+@Component
+public class ExportTasks {
+
+    @Autowired
+    @Qualifier("exportExecutor")
+    private ThreadPoolTaskExecutor exportExecutor;
+
+    @Value("${app.export.timeout-ms:600000}")
+    private long exportTimeoutMs;
+
+    // Writes the elements the body produces to the response as one JSON array
+    public WebAsyncTask<Void> jsonArray(HttpServletResponse response, Body body) {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        return new WebAsyncTask<>(exportTimeoutMs, exportExecutor, () -> {
+            try (JsonArrayWriter writer = new JsonArrayWriter(response.getOutputStream())) {
+                body.write(writer);
+                writer.finish();
+            }
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    public interface Body {
+        void write(JsonArrayWriter writer) throws IOException;
+    }
+}
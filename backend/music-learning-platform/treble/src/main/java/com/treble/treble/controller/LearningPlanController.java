@@ -1,15 +1,19 @@
 package com.treble.treble.controller;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.LearningPlanRequest;
 import com.treble.treble.dto.LearningPlanResponse;
+import com.treble.treble.service.ContentVersions;
 import com.treble.treble.service.LearningPlanService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -23,19 +27,42 @@ public class LearningPlanController {
     @Autowired
     private LearningPlanService learningPlanService;
 
+    @Autowired
+    private ContentVersions contentVersions;
+
     @GetMapping
     public ResponseEntity<List<LearningPlanResponse>> getAllLearningPlans(
-            @RequestParam(value = "userId", required = false) Long userId) {
+            @RequestParam(value = "userId", required = false) Long userId,
+            WebRequest webRequest) {
         logger.info("GET /api/v1/learning-plans - userId: {}", userId);
+        String etag = contentVersions.etag(ContentVersions.LEARNING_PLANS, ContentVersions.USERS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             List<LearningPlanResponse> learningPlans = learningPlanService.getAllLearningPlans(userId);
-            return ResponseEntity.ok(learningPlans);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(learningPlans);
         } catch (Exception e) {
             logger.error("Error getting all learning plans: {}", e.getMessage(), e);
             throw e;
         }
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<LearningPlanResponse>> getLearningPlansPage(
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info("GET /api/v1/learning-plans/page - userId: {}, cursor: {}, limit: {}", userId, cursor, limit);
+        try {
+            CursorPage<LearningPlanResponse> page = learningPlanService.getLearningPlansPage(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            logger.error("Error getting learning plan page: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<LearningPlanResponse> getLearningPlanById(
             @PathVariable Long id,
@@ -1,6 +1,8 @@
 package com.treble.treble.controller;
 
 import com.treble.treble.dto.LikeResponse;
+import com.treble.treble.dto.LikeStatusRequest;
+import com.treble.treble.dto.LikeStatusResponse;
 import com.treble.treble.service.LikeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,6 +29,16 @@ public class LikeController {
         return new ResponseEntity<>(likeResponse, HttpStatus.CREATED);
     }
 
+    // Idempotent like; safe to retry
+    @PutMapping("/post/{postId}/user/{userId}")
+    public ResponseEntity<LikeResponse> putLike(
+            @PathVariable Long postId,
+            @PathVariable Long userId) {
+
+        LikeResponse likeResponse = likeService.likePost(postId, userId);
+        return new ResponseEntity<>(likeResponse, HttpStatus.OK);
+    }
+
     @DeleteMapping("/post/{postId}/user/{userId}")
     public ResponseEntity<Void> unlikePost(
             @PathVariable Long postId,
@@ -50,6 +62,13 @@ public class LikeController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    // One round trip for every card on a screen instead of a count and a check call per post
+    @PostMapping("/status")
+    public ResponseEntity<List<LikeStatusResponse>> getLikeStatuses(@RequestBody LikeStatusRequest request) {
+        List<LikeStatusResponse> statuses = likeService.getLikeStatuses(request.getPostIds(), request.getViewerId());
+        return new ResponseEntity<>(statuses, HttpStatus.OK);
+    }
+
     @GetMapping("/check/post/{postId}/user/{userId}")
     public ResponseEntity<Map<String, Boolean>> hasUserLikedPost(
             @PathVariable Long postId,
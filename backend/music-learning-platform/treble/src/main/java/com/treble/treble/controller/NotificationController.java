@@ -1,11 +1,18 @@
 package com.treble.treble.controller;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.NotificationResponse;
+import com.treble.treble.service.ContentVersions;
 import com.treble.treble.service.NotificationService;
+import com.treble.treble.service.NotificationStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -18,18 +25,43 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private NotificationStreams notificationStreams;
+
+    // Pushes new notifications and unread count changes instead of clients polling for them
+    @GetMapping(value = "/stream/user/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(@PathVariable Long userId) {
+        return notificationStreams.subscribe(userId, notificationService.getUnreadNotificationCount(userId));
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<NotificationResponse>> getNotificationsByUserId(@PathVariable Long userId) {
         List<NotificationResponse> notifications = notificationService.getNotificationsByUserId(userId);
         return new ResponseEntity<>(notifications, HttpStatus.OK);
     }
 
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<CursorPage<NotificationResponse>> getNotificationsPage(
+            @PathVariable Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        CursorPage<NotificationResponse> page = notificationService.getNotificationsPage(userId, cursor, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @GetMapping("/unread/count/user/{userId}")
-    public ResponseEntity<Map<String, Integer>> getUnreadNotificationCount(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Integer>> getUnreadNotificationCount(@PathVariable Long userId, WebRequest webRequest) {
+        String etag = contentVersions.etag(ContentVersions.notifications(userId));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         int count = notificationService.getUnreadNotificationCount(userId);
         Map<String, Integer> response = new HashMap<>();
         response.put("count", count);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
     }
 
     @PutMapping("/{notificationId}/read")
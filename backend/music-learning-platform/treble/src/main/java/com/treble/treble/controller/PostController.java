@@ -1,13 +1,19 @@
 package com.treble.treble.controller;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.PostRequest;
 import com.treble.treble.dto.PostResponse;
+import com.treble.treble.service.ContentVersions;
 import com.treble.treble.service.PostService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -20,6 +26,12 @@ public class PostController {
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private ExportTasks exportTasks;
+
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<PostResponse> createPost(
             @RequestParam("userId") Long userId,
@@ -34,15 +46,65 @@ public class PostController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PostResponse>> getAllPosts() {
-        List<PostResponse> posts = postService.getAllPosts();
+    public ResponseEntity<List<PostResponse>> getAllPosts(
+            @RequestParam(value = "sort", required = false, defaultValue = "recent") String sort,
+            @RequestParam(value = "window", required = false, defaultValue = "24h") String window,
+            @RequestParam(value = "viewerId", required = false) Long viewerId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        List<PostResponse> posts;
+        if ("top".equalsIgnoreCase(sort)) {
+            posts = postService.getTopPosts(window, viewerId, limit);
+        } else if ("recent".equalsIgnoreCase(sort)) {
+            posts = postService.getAllPosts();
+        } else {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
         return new ResponseEntity<>(posts, HttpStatus.OK);
     }
 
+    // Same content as the unsorted list, written to the response as rows are read
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportPosts(
+            @RequestParam(value = "viewerId", required = false) Long viewerId, HttpServletResponse response) {
+        return exportTasks.jsonArray(response, writer -> postService.exportPosts(viewerId, writer::write));
+    }
+
     @GetMapping("/for-user/{userId}")
-    public ResponseEntity<List<PostResponse>> getAllPostsForUser(@PathVariable Long userId) {
+    public ResponseEntity<List<PostResponse>> getAllPostsForUser(@PathVariable Long userId, WebRequest webRequest) {
+        // Answered with 304 before any query when the client already has this version
+        String etag = contentVersions.etag(ContentVersions.POSTS, ContentVersions.USERS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<PostResponse> posts = postService.getAllPostsForUser(userId);
-        return new ResponseEntity<>(posts, HttpStatus.OK);
+        // no-cache keeps the response revalidatable instead of the default no-store
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(posts);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<PostResponse>> getPostsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        CursorPage<PostResponse> page = postService.getPostsPage(null, cursor, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/for-user/{userId}/page")
+    public ResponseEntity<CursorPage<PostResponse>> getPostsPageForUser(
+            @PathVariable Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        CursorPage<PostResponse> page = postService.getPostsPage(userId, cursor, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/timeline/{userId}")
+    public ResponseEntity<CursorPage<PostResponse>> getTimeline(
+            @PathVariable Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        CursorPage<PostResponse> timeline = postService.getTimeline(userId, cursor, limit);
+        return new ResponseEntity<>(timeline, HttpStatus.OK);
     }
 
     @GetMapping("/user/{userId}")
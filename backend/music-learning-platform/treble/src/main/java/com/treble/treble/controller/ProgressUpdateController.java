@@ -1,8 +1,10 @@
 package com.treble.treble.controller;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.ProgressUpdateRequest;
 import com.treble.treble.dto.ProgressUpdateResponse;
 import com.treble.treble.service.ProgressUpdateService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +14,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -25,6 +28,9 @@ public class ProgressUpdateController {
     @Autowired
     private ProgressUpdateService progressUpdateService;
 
+    @Autowired
+    private ExportTasks exportTasks;
+
     /**
      * Helper method to safely parse user ID from authentication
      */
@@ -88,6 +94,27 @@ public class ProgressUpdateController {
         return ResponseEntity.ok(responses);
     }
 
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportProgressUpdates(HttpServletResponse response) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = getUserIdFromAuth(authentication);
+        Long currentUserId = userId != null ? userId : 1L;
+
+        return exportTasks.jsonArray(response,
+                writer -> progressUpdateService.exportProgressUpdates(currentUserId, writer::write));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<ProgressUpdateResponse>> getProgressUpdatesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = getUserIdFromAuth(authentication);
+
+        CursorPage<ProgressUpdateResponse> page = progressUpdateService.getProgressUpdatesPage(userId != null ? userId : 1L, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<ProgressUpdateResponse>> getProgressUpdatesByUserId(
             @PathVariable Long userId) {
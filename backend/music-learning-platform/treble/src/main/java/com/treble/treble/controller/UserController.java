@@ -2,6 +2,8 @@ package com.treble.treble.controller;
 
 import com.treble.treble.model.User;
 import com.treble.treble.service.UserService;
+import com.treble.treble.dto.CursorPage;
+import com.treble.treble.dto.SuggestionResponse;
 import com.treble.treble.dto.UserDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.Authentication;
@@ -28,6 +31,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ExportTasks exportTasks;
+
     @PostMapping
     public ResponseEntity<String> createUser(@RequestBody User user) {
         try {
@@ -113,6 +119,12 @@ public class UserController {
         }
     }
 
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportUsers(HttpServletResponse response) {
+        return exportTasks.jsonArray(response,
+                writer -> userService.exportUsers(user -> writer.write(convertToDTO(user))));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserById(@PathVariable Long id) {
         try {
@@ -221,6 +233,34 @@ public class UserController {
         }
     }
 
+    @GetMapping("/{id}/followers")
+    public ResponseEntity<CursorPage<UserDTO>> getFollowers(
+            @PathVariable Long id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getFollowersPage(id, cursor, limit));
+    }
+
+    @GetMapping("/{id}/following")
+    public ResponseEntity<CursorPage<UserDTO>> getFollowing(
+            @PathVariable Long id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getFollowingPage(id, cursor, limit));
+    }
+
+    @GetMapping("/{id}/suggestions")
+    public ResponseEntity<List<SuggestionResponse>> getSuggestions(
+            @PathVariable Long id,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getSuggestions(id, limit));
+    }
+
+    @GetMapping("/{id}/follows/{followId}")
+    public ResponseEntity<Map<String, Boolean>> isFollowing(@PathVariable Long id, @PathVariable Long followId) {
+        return ResponseEntity.ok(Map.of("following", userService.isFollowing(id, followId)));
+    }
+
     // Helper method to convert User to UserDTO
     private UserDTO convertToDTO(User user) {
         UserDTO dto = new UserDTO();
@@ -233,14 +273,8 @@ public class UserController {
         dto.setProfilePictureUrl(user.getProfilePictureUrl());
         dto.setContactNo(user.getContactNo());
         dto.setDOB(user.getDOB());
-
-        dto.setFollowerIds(user.getFollowers().stream()
-                .map(User::getId)
-                .collect(Collectors.toSet()));
-
-        dto.setFollowingIds(user.getFollowing().stream()
-                .map(User::getId)
-                .collect(Collectors.toSet()));
+        dto.setFollowerCount(user.getFollowerCount());
+        dto.setFollowingCount(user.getFollowingCount());
 
         return dto;
     }
@@ -0,0 +1,32 @@
+package com.treble.treble.dto;
+
+import java.util.List;
+
+public class LikeStatusRequest {
+    private List<Long> postIds;
+    private Long viewerId;
+
+    public LikeStatusRequest() {
+    }
+
+    public LikeStatusRequest(List<Long> postIds, Long viewerId) {
+        this.postIds = postIds;
+        this.viewerId = viewerId;
+    }
+
+    public List<Long> getPostIds() {
+        return postIds;
+    }
+
+    public void setPostIds(List<Long> postIds) {
+        this.postIds = postIds;
+    }
+
+    public Long getViewerId() {
+        return viewerId;
+    }
+
+    public void setViewerId(Long viewerId) {
+        this.viewerId = viewerId;
+    }
+}
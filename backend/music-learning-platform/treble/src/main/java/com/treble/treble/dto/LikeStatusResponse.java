@@ -0,0 +1,26 @@
+package com.treble.treble.dto;
+
+public class LikeStatusResponse {
+    private Long postId;
+    private int likeCount;
+    private boolean hasLiked;
+
+    public LikeStatusResponse(Long postId, int likeCount, boolean hasLiked) {
+        this.postId = postId;
+        this.likeCount = likeCount;
+        this.hasLiked = hasLiked;
+    }
+
+    // Getters
+    public Long getPostId() {
+        return postId;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public boolean isHasLiked() {
+        return hasLiked;
+    }
+}
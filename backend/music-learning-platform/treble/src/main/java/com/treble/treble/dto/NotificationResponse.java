@@ -11,6 +11,7 @@ public class NotificationResponse {
     private String type;
     private Long referenceId;
     private String message;
+    private int actorCount;
     private boolean read;
     private LocalDateTime createdAt;
     private UserDTO sender;
@@ -22,6 +23,8 @@ public class NotificationResponse {
         this.type = notification.getType();
         this.referenceId = notification.getReferenceId();
         this.message = notification.getMessage();
+        // Rows from before coalescing stand for their sender alone
+        this.actorCount = Math.max(notification.getActorCount(), 1);
         this.read = notification.isRead();
         this.createdAt = notification.getCreatedAt();
     }
@@ -31,6 +34,12 @@ public class NotificationResponse {
         this.sender = sender;
     }
 
+    public NotificationResponse(Notification notification, UserDTO sender, String message, boolean read) {
+        this(notification, sender);
+        this.message = message;
+        this.read = read;
+    }
+
     // Getters
     public Long getId() {
         return id;
@@ -56,6 +65,10 @@ public class NotificationResponse {
         return message;
     }
 
+    public int getActorCount() {
+        return actorCount;
+    }
+
     public boolean isRead() {
         return read;
     }
@@ -17,14 +17,21 @@ public class PostResponse {
     private UserDTO user;
     private int commentCount;
     private List<CommentResponse> comments;
+    // Where GET /comments/post/{postId}/page continues after the embedded comments, null when there are no more
+    private String commentsCursor;
     private int likeCount;
     private boolean hasLiked;
 
     public PostResponse(Post post) {
+        this(post, post.getMediaItems());
+    }
+
+    // Used when the media rows were fetched separately instead of through the lazy collection
+    public PostResponse(Post post, List<PostMedia> mediaItems) {
         this.id = post.getId();
         this.userId = post.getUserId();
         this.caption = post.getCaption();
-        this.mediaItems = post.getMediaItems().stream()
+        this.mediaItems = mediaItems.stream()
                 .map(PostMediaDTO::new)
                 .collect(Collectors.toList());
         this.createdAt = post.getCreatedAt();
@@ -52,12 +59,25 @@ public class PostResponse {
         this.hasLiked = hasLiked;
     }
 
+    public PostResponse(Post post, List<PostMedia> mediaItems, UserDTO user, int commentCount, int likeCount, boolean hasLiked) {
+        this(post, mediaItems);
+        this.user = user;
+        this.commentCount = commentCount;
+        this.likeCount = likeCount;
+        this.hasLiked = hasLiked;
+    }
+
     public PostResponse(Post post, UserDTO user, int commentCount, List<CommentResponse> comments, int likeCount, boolean hasLiked) {
         this(post, user, commentCount, comments);
         this.likeCount = likeCount;
         this.hasLiked = hasLiked;
     }
 
+    public PostResponse(Post post, UserDTO user, int commentCount, CursorPage<CommentResponse> comments, int likeCount, boolean hasLiked) {
+        this(post, user, commentCount, comments.getItems(), likeCount, hasLiked);
+        this.commentsCursor = comments.getNextCursor();
+    }
+
     // Getters
     public Long getId() {
         return id;
@@ -95,6 +115,10 @@ public class PostResponse {
         return comments;
     }
 
+    public String getCommentsCursor() {
+        return commentsCursor;
+    }
+
     public int getLikeCount() {
         return likeCount;
     }
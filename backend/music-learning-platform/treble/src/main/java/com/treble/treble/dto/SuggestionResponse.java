@@ -0,0 +1,21 @@
+package com.treble.treble.dto;
+
+public class SuggestionResponse {
+    private UserDTO user;
+    // How many of the people the requesting user follows already follow this user
+    private int mutualCount;
+
+    public SuggestionResponse(UserDTO user, int mutualCount) {
+        this.user = user;
+        this.mutualCount = mutualCount;
+    }
+
+    // Getters
+    public UserDTO getUser() {
+        return user;
+    }
+
+    public int getMutualCount() {
+        return mutualCount;
+    }
+}
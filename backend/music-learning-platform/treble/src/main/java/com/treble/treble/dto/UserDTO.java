@@ -1,8 +1,6 @@
 package com.treble.treble.dto;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 public class UserDTO {
     private Long id;
@@ -14,8 +12,8 @@ public class UserDTO {
     private String email;
     private String gender;
     private String profilePictureUrl;
-    private Set<Long> followerIds = new HashSet<>();
-    private Set<Long> followingIds = new HashSet<>();
+    private int followerCount;
+    private int followingCount;
 
     // Getters and Setters
     public Long getId() {
@@ -90,19 +88,19 @@ public class UserDTO {
         this.profilePictureUrl = profilePictureUrl;
     }
 
-    public Set<Long> getFollowerIds() {
-        return followerIds;
+    public int getFollowerCount() {
+        return followerCount;
     }
 
-    public void setFollowerIds(Set<Long> followerIds) {
-        this.followerIds = followerIds;
+    public void setFollowerCount(int followerCount) {
+        this.followerCount = followerCount;
     }
 
-    public Set<Long> getFollowingIds() {
-        return followingIds;
+    public int getFollowingCount() {
+        return followingCount;
     }
 
-    public void setFollowingIds(Set<Long> followingIds) {
-        this.followingIds = followingIds;
+    public void setFollowingCount(int followingCount) {
+        this.followingCount = followingCount;
     }
 }
@@ -0,0 +1,44 @@
+package com.treble.treble.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when something happened that a user should be notified about. The
+ * notification row is written by the notification pipeline once the publishing
+ * transaction has committed.
+ */
+public class NotificationEvent {
+    private final Long userId;
+    private final Long senderId;
+    private final String type;
+    private final Long referenceId;
+    private final LocalDateTime createdAt;
+
+    public NotificationEvent(Long userId, Long senderId, String type, Long referenceId) {
+        this.userId = userId;
+        this.senderId = senderId;
+        this.type = type;
+        this.referenceId = referenceId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getReferenceId() {
+        return referenceId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -6,7 +6,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "learning_plans")
+@Table(name = "learning_plans", indexes = {
+        @Index(name = "idx_learning_plans_created_at_id", columnList = "created_at, id")
+})
 public class LearningPlan {
 
     @Id
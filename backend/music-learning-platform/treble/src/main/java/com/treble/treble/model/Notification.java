@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_created_at_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_notifications_user_type_reference", columnList = "user_id, type, reference_id")
+})
 public class Notification {
 
     @Id
@@ -23,15 +26,29 @@ public class Notification {
     @Column(name = "reference_id", nullable = false)
     private Long referenceId;
 
+    // Only set on rows written before messages were rendered at read time
     @Column(nullable = false)
     private String message;
 
+    // Distinct users folded into this notification; rows from before coalescing read as 0
+    @Column(name = "actor_count", nullable = false)
+    private int actorCount;
+
+    // Comma-separated ids of the latest few actors, most recent first
+    @Column(name = "recent_actor_ids")
+    private String recentActorIds;
+
     @Column(name = "`read`", nullable = false) // Fixed: Escaped reserved keyword
     private boolean read;
 
+    // Never moves, so folding in actors keeps the row's place in the list and under cursors
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // When actors were last folded in; null until the first one is
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     // Default constructor
     public Notification() {
         this.read = false;
@@ -98,6 +115,22 @@ public class Notification {
         this.message = message;
     }
 
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    public void setActorCount(int actorCount) {
+        this.actorCount = actorCount;
+    }
+
+    public String getRecentActorIds() {
+        return recentActorIds;
+    }
+
+    public void setRecentActorIds(String recentActorIds) {
+        this.recentActorIds = recentActorIds;
+    }
+
     public boolean isRead() {
         return read;
     }
@@ -113,4 +146,17 @@ public class Notification {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // Time of the latest actor, which the coalescing window is measured from
+    public LocalDateTime getLastActiveAt() {
+        return updatedAt != null ? updatedAt : createdAt;
+    }
 }
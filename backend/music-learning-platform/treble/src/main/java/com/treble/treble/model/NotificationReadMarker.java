@@ -0,0 +1,63 @@
+package com.treble.treble.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A user's "read up to here" watermark over their notifications, in the same
+ * (created_at, id) order notifications are listed in. Everything at or before it counts
+ * as read; the per-row read flag only records notifications read individually after it.
+ */
+@Entity
+@Table(name = "notification_read_markers")
+public class NotificationReadMarker {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_read_at", nullable = false)
+    private LocalDateTime lastReadAt;
+
+    @Column(name = "last_read_notification_id", nullable = false)
+    private Long lastReadNotificationId;
+
+    // Default constructor
+    public NotificationReadMarker() {
+    }
+
+    // Constructor with fields
+    public NotificationReadMarker(Long userId) {
+        this.userId = userId;
+    }
+
+    // Whether the watermark covers a notification with the given position
+    public boolean covers(LocalDateTime createdAt, Long id) {
+        return createdAt.isBefore(lastReadAt) || (createdAt.isEqual(lastReadAt) && id <= lastReadNotificationId);
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getLastReadAt() {
+        return lastReadAt;
+    }
+
+    public void setLastReadAt(LocalDateTime lastReadAt) {
+        this.lastReadAt = lastReadAt;
+    }
+
+    public Long getLastReadNotificationId() {
+        return lastReadNotificationId;
+    }
+
+    public void setLastReadNotificationId(Long lastReadNotificationId) {
+        this.lastReadNotificationId = lastReadNotificationId;
+    }
+}
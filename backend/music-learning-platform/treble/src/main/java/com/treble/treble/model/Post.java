@@ -6,7 +6,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_posts_user_created_at_id", columnList = "user_id, created_at, id")
+})
 public class Post {
 
     @Id
@@ -22,6 +25,14 @@ public class Post {
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PostMedia> mediaItems = new ArrayList<>();
 
+    // Denormalized counters, only ever changed through PostRepository's atomic adjust queries;
+    // saving a loaded post never writes them back. Inserted as 0, existing tables have no column default
+    @Column(nullable = false, updatable = false)
+    private int likeCount = 0;
+
+    @Column(nullable = false, updatable = false)
+    private int commentCount = 0;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -82,6 +93,22 @@ public class Post {
         mediaItem.setPost(null);
     }
 
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "progress_updates")
+@Table(name = "progress_updates", indexes = {
+        @Index(name = "idx_progress_updates_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_progress_updates_user_created_at_id", columnList = "user_id, created_at, id")
+})
 public class ProgressUpdate {
 
     @Id
@@ -12,6 +12,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Table(indexes = @Index(name = "idx_user_follower_count", columnList = "follower_count"))
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
@@ -47,7 +48,8 @@ public class User {
     @JoinTable(
             name = "user_followers",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "follower_id")
+            inverseJoinColumns = @JoinColumn(name = "follower_id"),
+            indexes = @Index(name = "idx_user_followers_follower_user", columnList = "follower_id, user_id")
     )
     @JsonIgnore
     private Set<User> followers = new HashSet<>();
@@ -56,6 +58,15 @@ public class User {
     @JsonIgnore
     private Set<User> following = new HashSet<>();
 
+    // Maintained by UserRepository.adjustFollowCounts; the entity never writes them back
+    @Column(name = "follower_count", nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int followerCount = 0;
+
+    @Column(name = "following_count", nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int followingCount = 0;
+
     // Getters and Setters
 
     public Long getId() {
@@ -153,4 +164,20 @@ public class User {
     public void setFollowing(Set<User> following) {
         this.following = following;
     }
+
+    public int getFollowerCount() {
+        return followerCount;
+    }
+
+    public void setFollowerCount(int followerCount) {
+        this.followerCount = followerCount;
+    }
+
+    public int getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(int followingCount) {
+        this.followingCount = followingCount;
+    }
 }
@@ -0,0 +1,83 @@
+package com.treble.treble.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Follow writes straight against the user_followers join table, so following someone
+ * never loads either user's follower or following collection.
+ *
+ * Inserts are idempotent and report whether a row was added, relying on the
+ * (user_id, follower_id) primary key. MySQL uses {@code INSERT IGNORE}; other databases
+ * use an insert guarded by {@code NOT EXISTS}, with a concurrent duplicate caught as
+ * "not inserted".
+ */
+@Repository
+public class FollowJdbcRepository {
+    private static final int EDGE_FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean mysql;
+
+    @PostConstruct
+    public void detectDialect() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        mysql = product != null && (product.equalsIgnoreCase("MySQL") || product.equalsIgnoreCase("MariaDB"));
+    }
+
+    public boolean exists(Long userId, Long followerId) {
+        Integer found = jdbcTemplate.query(
+                "SELECT 1 FROM user_followers WHERE user_id = ? AND follower_id = ?",
+                resultSet -> resultSet.next() ? 1 : null, userId, followerId);
+        return found != null;
+    }
+
+    // Returns true when the follower did not follow the user before
+    public boolean insertIfAbsent(Long userId, Long followerId) {
+        try {
+            if (mysql) {
+                return jdbcTemplate.update("INSERT IGNORE INTO user_followers (user_id, follower_id) VALUES (?, ?)",
+                        userId, followerId) > 0;
+            }
+            return jdbcTemplate.update("INSERT INTO user_followers (user_id, follower_id) SELECT ?, ? " +
+                            "WHERE NOT EXISTS (SELECT 1 FROM user_followers WHERE user_id = ? AND follower_id = ?)",
+                    userId, followerId, userId, followerId) > 0;
+        } catch (DuplicateKeyException e) {
+            // Lost the race to a concurrent follow of the same user
+            return false;
+        }
+    }
+
+    // Returns true when the follower did follow the user
+    public boolean delete(Long userId, Long followerId) {
+        return jdbcTemplate.update("DELETE FROM user_followers WHERE user_id = ? AND follower_id = ?",
+                userId, followerId) > 0;
+    }
+
+    // Hands every follow edge to the handler, grouped by follower, over idx_user_followers_follower_user
+    public void forEachEdge(EdgeHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT follower_id, user_id FROM user_followers ORDER BY follower_id, user_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(EDGE_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> handler.edge(resultSet.getLong(1), resultSet.getLong(2)));
+    }
+
+    @FunctionalInterface
+    public interface EdgeHandler {
+        void edge(long followerId, long userId);
+    }
+}
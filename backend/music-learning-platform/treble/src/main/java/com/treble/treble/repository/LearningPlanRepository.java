@@ -1,12 +1,22 @@
 package com.treble.treble.repository;
 
 import com.treble.treble.model.LearningPlan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface LearningPlanRepository extends JpaRepository<LearningPlan, Long> {
-    List<LearningPlan> findAllByOrderByCreatedAtDesc();
+
+    // Keyset pages over idx_learning_plans_created_at_id
+    List<LearningPlan> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT l FROM LearningPlan l WHERE l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id) " +
+            "ORDER BY l.createdAt DESC, l.id DESC")
+    List<LearningPlan> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
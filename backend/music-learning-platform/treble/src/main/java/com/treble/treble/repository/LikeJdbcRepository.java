@@ -0,0 +1,178 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.Like;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-statement like writes through JDBC.
+ *
+ * Inserts are idempotent and report whether a row was actually added, relying on the
+ * unique (post_id, user_id) constraint instead of a separate existence check. MySQL uses
+ * {@code INSERT IGNORE}; other databases (H2 in development) use an insert guarded by
+ * {@code NOT EXISTS}, with a concurrent duplicate caught as "not inserted".
+ */
+@Repository
+public class LikeJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean mysql;
+
+    @PostConstruct
+    public void detectDialect() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        mysql = product != null && (product.equalsIgnoreCase("MySQL") || product.equalsIgnoreCase("MariaDB"));
+    }
+
+    // Returns true and sets the generated id when the like is new
+    public boolean insertIfAbsent(Like like) {
+        Timestamp createdAt = Timestamp.valueOf(like.getCreatedAt());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(insertSql(), new String[]{"id"});
+                bindInsert(statement, like.getPostId(), like.getUserId(), createdAt);
+                return statement;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            // Lost the race to a concurrent insert of the same like
+            return false;
+        }
+        if (inserted == 0) {
+            return false;
+        }
+        Number id = keyHolder.getKey();
+        if (id != null) {
+            like.setId(id.longValue());
+        }
+        return true;
+    }
+
+    public int deleteLike(Long postId, Long userId) {
+        return jdbcTemplate.update("DELETE FROM likes WHERE post_id = ? AND user_id = ?", postId, userId);
+    }
+
+    // Each pair is {postId, userId}; returns the pairs among them that have a like row
+    public List<long[]> findExisting(List<long[]> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> postIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        Set<List<Long>> wanted = new HashSet<>();
+        for (long[] like : likes) {
+            postIds.add(like[0]);
+            userIds.add(like[1]);
+            wanted.add(List.of(like[0], like[1]));
+        }
+        String sql = "SELECT post_id, user_id FROM likes WHERE post_id IN (" + placeholders(postIds.size()) +
+                ") AND user_id IN (" + placeholders(userIds.size()) + ")";
+        List<Object> args = new ArrayList<>(postIds);
+        args.addAll(userIds);
+
+        // The IN lists select a superset of the pairs; keep only the exact ones
+        List<long[]> existing = new ArrayList<>();
+        jdbcTemplate.query(sql, resultSet -> {
+            long postId = resultSet.getLong(1);
+            long userId = resultSet.getLong(2);
+            if (wanted.contains(List.of(postId, userId))) {
+                existing.add(new long[]{postId, userId});
+            }
+        }, args.toArray());
+        return existing;
+    }
+
+    /**
+     * Each pair is {postId, userId}; pairs that already exist are skipped. Returns per pair
+     * whether a row was inserted. A batch rewritten into one multi-row INSERT reports no
+     * per-row counts, so such rows are taken as inserted; callers drop existing pairs first.
+     */
+    public boolean[] insertLikes(List<long[]> likes, LocalDateTime createdAt) {
+        if (likes.isEmpty()) {
+            return new boolean[0];
+        }
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        int[][] counts = jdbcTemplate.batchUpdate(insertSql(), likes, likes.size(),
+                (statement, like) -> bindInsert(statement, like[0], like[1], timestamp));
+        return changedRows(counts, likes.size());
+    }
+
+    // Each pair is {postId, userId}; returns per pair whether a row was deleted
+    public boolean[] deleteLikes(List<long[]> likes) {
+        if (likes.isEmpty()) {
+            return new boolean[0];
+        }
+        int[][] counts = jdbcTemplate.batchUpdate("DELETE FROM likes WHERE post_id = ? AND user_id = ?",
+                likes, likes.size(),
+                (statement, like) -> {
+                    statement.setLong(1, like[0]);
+                    statement.setLong(2, like[1]);
+                });
+        return changedRows(counts, likes.size());
+    }
+
+    // One statement per post however many likes it gained or lost in the batch
+    public void adjustLikeCounts(Map<Long, Integer> deltasByPostId) {
+        if (deltasByPostId.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltasByPostId.size());
+        deltasByPostId.forEach((postId, delta) -> args.add(new Object[]{delta, postId}));
+        jdbcTemplate.batchUpdate("UPDATE posts SET like_count = like_count + ? WHERE id = ?", args);
+    }
+
+    private String insertSql() {
+        if (mysql) {
+            return "INSERT IGNORE INTO likes (post_id, user_id, created_at) VALUES (?, ?, ?)";
+        }
+        return "INSERT INTO likes (post_id, user_id, created_at) SELECT ?, ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE post_id = ? AND user_id = ?)";
+    }
+
+    private void bindInsert(PreparedStatement statement, long postId, long userId, Timestamp createdAt) throws SQLException {
+        statement.setLong(1, postId);
+        statement.setLong(2, userId);
+        statement.setTimestamp(3, createdAt);
+        if (!mysql) {
+            statement.setLong(4, postId);
+            statement.setLong(5, userId);
+        }
+    }
+
+    private static boolean[] changedRows(int[][] counts, int size) {
+        boolean[] changed = new boolean[size];
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                changed[i++] = count > 0 || count == Statement.SUCCESS_NO_INFO;
+            }
+        }
+        return changed;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.Notification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class NotificationJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // One batched statement for the whole list; sets the generated id on each notification
+    public void insertNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO notifications (user_id, sender_id, type, reference_id, message, actor_count, " +
+                                "recent_actor_ids, `read`, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Notification notification = notifications.get(i);
+                        statement.setLong(1, notification.getUserId());
+                        statement.setLong(2, notification.getSenderId());
+                        statement.setString(3, notification.getType());
+                        statement.setLong(4, notification.getReferenceId());
+                        statement.setString(5, notification.getMessage());
+                        statement.setInt(6, notification.getActorCount());
+                        statement.setString(7, notification.getRecentActorIds());
+                        statement.setBoolean(8, notification.isRead());
+                        statement.setTimestamp(9, Timestamp.valueOf(notification.getCreatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return notifications.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        for (int i = 0; i < keyList.size(); i++) {
+            notifications.get(i).setId(((Number) keyList.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    /**
+     * Folds new actors into existing unread rows. Each entry is {senderId, addedActors,
+     * recentActorIds, activeAt, id}. created_at is left alone; updated_at records the latest
+     * activity. Returns the affected row count per entry; 0 means the row was read meanwhile
+     * and the actors need a new row.
+     */
+    public int[] mergeActors(List<Object[]> merges) {
+        if (merges.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(
+                "UPDATE notifications SET sender_id = ?, actor_count = actor_count + ?, recent_actor_ids = ?, " +
+                        "updated_at = GREATEST(COALESCE(updated_at, created_at), ?) WHERE id = ? AND `read` = false",
+                merges);
+    }
+
+    /**
+     * Deletes the given notifications, first copying them to notification_archive when
+     * {@code archive} is set. Rows active after {@code activeAtLimit}, i.e. that coalesced
+     * new activity since they were selected, are left alone. Returns the number of rows
+     * deleted.
+     */
+    public int archiveAndDelete(List<Long> ids, LocalDateTime activeAtLimit, LocalDateTime archivedAt, boolean archive) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Timestamp limit = Timestamp.valueOf(activeAtLimit);
+
+        List<Object> args = new ArrayList<>(ids.size() + 2);
+        args.addAll(ids);
+        args.add(limit);
+        if (archive) {
+            List<Object> archiveArgs = new ArrayList<>(args.size() + 1);
+            archiveArgs.add(Timestamp.valueOf(archivedAt));
+            archiveArgs.addAll(args);
+            jdbcTemplate.update(
+                    "INSERT INTO notification_archive (id, user_id, sender_id, type, reference_id, actor_count, " +
+                            "created_at, archived_at) SELECT id, user_id, sender_id, type, reference_id, " +
+                            "GREATEST(actor_count, 1), created_at, ? FROM notifications " +
+                            "WHERE id IN (" + placeholders + ") AND COALESCE(updated_at, created_at) <= ?",
+                    archiveArgs.toArray());
+        }
+        return jdbcTemplate.update(
+                "DELETE FROM notifications WHERE id IN (" + placeholders + ") " +
+                        "AND COALESCE(updated_at, created_at) <= ?",
+                args.toArray());
+    }
+}
@@ -0,0 +1,9 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.NotificationReadMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationReadMarkerRepository extends JpaRepository<NotificationReadMarker, Long> {
+}
@@ -1,13 +1,57 @@
 package com.treble.treble.repository;
 
 import com.treble.treble.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
     int countByUserIdAndReadFalse(Long userId);
+
+    Optional<Notification> findFirstByUserIdOrderByCreatedAtDescIdDesc(Long userId);
+
+    // Unread rows after a read watermark; a range over idx_notifications_user_created_at_id
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.read = false " +
+            "AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id))")
+    int countUnreadAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                         @Param("id") Long id);
+
+    // Keyset pages over idx_notifications_user_created_at_id
+    List<Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Pageable pageable);
+
+    // Unread rows new actors may still be folded into; callers match the exact (user, type, reference) in memory
+    @Query("SELECT n FROM Notification n WHERE n.userId IN :userIds AND n.referenceId IN :referenceIds " +
+            "AND n.read = false AND COALESCE(n.updatedAt, n.createdAt) >= :since")
+    List<Notification> findOpenGroups(@Param("userIds") Collection<Long> userIds,
+                                      @Param("referenceIds") Collection<Long> referenceIds,
+                                      @Param("since") LocalDateTime since);
+
+    // Returns [id, userId, read, createdAt] rows older than the cutoff after the given id, for chunked retention
+    @Query("SELECT n.id, n.userId, n.read, n.createdAt FROM Notification n " +
+            "WHERE n.id > :afterId AND n.createdAt < :before ORDER BY n.id")
+    List<Object[]> findAgedChunk(@Param("afterId") Long afterId, @Param("before") LocalDateTime before, Pageable pageable);
+
+    @Query("SELECT n.userId FROM Notification n GROUP BY n.userId HAVING COUNT(n) > :cap")
+    List<Long> findUserIdsWithMoreThan(@Param("cap") long cap);
+
+    // Oldest first, up to and including the given position
+    @Query("SELECT n.id FROM Notification n WHERE n.userId = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id)) " +
+            "ORDER BY n.createdAt, n.id")
+    List<Long> findIdsUpTo(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                           @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,33 @@
+package com.treble.treble.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+public class PostJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Each entry is {postId, likeDelta, commentDelta}; applied in id order so concurrent flushes lock rows alike
+    public void adjustCounters(List<long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<long[]> sorted = new ArrayList<>(deltas);
+        sorted.sort(Comparator.comparingLong(delta -> delta[0]));
+        jdbcTemplate.batchUpdate(
+                "UPDATE posts SET like_count = like_count + ?, comment_count = comment_count + ? WHERE id = ?",
+                sorted, sorted.size(),
+                (statement, delta) -> {
+                    statement.setLong(1, delta[1]);
+                    statement.setLong(2, delta[2]);
+                    statement.setLong(3, delta[0]);
+                });
+    }
+}
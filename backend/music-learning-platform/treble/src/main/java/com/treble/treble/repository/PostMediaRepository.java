@@ -4,6 +4,10 @@ import com.treble.treble.model.PostMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PostMediaRepository extends JpaRepository<PostMedia, Long> {
+    List<PostMedia> findByPostIdInOrderByIdAsc(Collection<Long> postIds);
 }
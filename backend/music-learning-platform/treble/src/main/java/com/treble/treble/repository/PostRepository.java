@@ -1,13 +1,93 @@
 package com.treble.treble.repository;
 
 import com.treble.treble.model.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findByUserIdOrderByCreatedAtDesc(Long userId);
-    List<Post> findAllByOrderByCreatedAtDesc();
+
+    // Newest posts of one author over idx_posts_user_created_at_id
+    List<Post> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT p FROM Post p WHERE p.userId = :userId " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findByUserIdPageBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Pageable pageable);
+
+    List<Post> findByCreatedAtAfter(LocalDateTime createdAt);
+
+    // Keyset pages over idx_posts_created_at_id; callers pass PageRequest.of(0, size)
+    List<Post> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT p FROM Post p WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // The given authors that have posted, most recently active first, over idx_posts_user_created_at_id
+    @Query("SELECT p.userId FROM Post p WHERE p.userId IN :userIds GROUP BY p.userId ORDER BY MAX(p.createdAt) DESC, p.userId ASC")
+    List<Long> findUserIdsByLatestPost(@Param("userIds") Collection<Long> userIds, Pageable pageable);
+
+    // Authors with followers that have posts no follower received, i.e. posts that skipped fan-out
+    @Query(value = "SELECT DISTINCT p.user_id FROM posts p " +
+            "WHERE EXISTS (SELECT 1 FROM user_followers f WHERE f.user_id = p.user_id) " +
+            "AND NOT EXISTS (SELECT 1 FROM timeline_entries t WHERE t.post_id = p.id AND t.user_id <> p.user_id)",
+            nativeQuery = true)
+    List<Long> findAuthorsWithoutFanOut();
+
+    // Keyset chunk of the author's posts that skipped fan-out, oldest id first
+    @Query("SELECT p FROM Post p WHERE p.userId = :userId AND p.id > :afterId " +
+            "AND NOT EXISTS (SELECT t.id FROM TimelineEntry t WHERE t.postId = p.id AND t.userId <> :userId) " +
+            "ORDER BY p.id")
+    List<Post> findWithoutFanOutAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.userId FROM Post p WHERE p.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @Query("SELECT p.likeCount FROM Post p WHERE p.id = :postId")
+    Optional<Integer> findLikeCountById(@Param("postId") Long postId);
+
+    // Returns [postId, likeCount] rows for the posts that exist
+    @Query("SELECT p.id, p.likeCount FROM Post p WHERE p.id IN :postIds")
+    List<Object[]> findLikeCounts(@Param("postIds") Collection<Long> postIds);
+
+    // Returns [postId, likeCount, commentCount] rows for the posts that exist
+    @Query("SELECT p.id, p.likeCount, p.commentCount FROM Post p WHERE p.id IN :postIds")
+    List<Object[]> findCounters(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT p.commentCount FROM Post p WHERE p.id = :postId")
+    Optional<Integer> findCommentCountById(@Param("postId") Long postId);
+
+    // Single-statement increments so concurrent likes/comments never lose updates
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = p.likeCount + :delta WHERE p.id = :postId")
+    int adjustLikeCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = p.commentCount + :delta WHERE p.id = :postId")
+    int adjustCommentCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    // Returns [id, likeCount, commentCount] rows after the given id, for chunked reconciliation
+    @Query("SELECT p.id, p.likeCount, p.commentCount FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findCounterChunk(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Only overwrites the counters if nobody changed them since they were read
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = :likeCount, p.commentCount = :commentCount " +
+            "WHERE p.id = :postId AND p.likeCount = :expectedLikeCount AND p.commentCount = :expectedCommentCount")
+    int resetCounters(@Param("postId") Long postId,
+                      @Param("likeCount") int likeCount,
+                      @Param("commentCount") int commentCount,
+                      @Param("expectedLikeCount") int expectedLikeCount,
+                      @Param("expectedCommentCount") int expectedCommentCount);
 }
@@ -4,10 +4,12 @@ import com.treble.treble.model.ProgressUpdateMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProgressUpdateMediaRepository extends JpaRepository<ProgressUpdateMedia, Long> {
     List<ProgressUpdateMedia> findByProgressUpdateId(Long progressUpdateId);
+    List<ProgressUpdateMedia> findByProgressUpdateIdInOrderByIdAsc(Collection<Long> progressUpdateIds);
     void deleteByProgressUpdateId(Long progressUpdateId);
 }
@@ -1,14 +1,26 @@
 package com.treble.treble.repository;
 
 import com.treble.treble.model.ProgressUpdate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ProgressUpdateRepository extends JpaRepository<ProgressUpdate, Long> {
-    List<ProgressUpdate> findByUserIdOrderByCreatedAtDesc(Long userId);
     List<ProgressUpdate> findByLearningPlanIdOrderByCreatedAtDesc(Long learningPlanId);
-    List<ProgressUpdate> findAllByOrderByCreatedAtDesc();
+
+    // Newest updates of one user over idx_progress_updates_user_created_at_id
+    List<ProgressUpdate> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    // Keyset pages over idx_progress_updates_created_at_id
+    List<ProgressUpdate> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT p FROM ProgressUpdate p WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProgressUpdate> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,40 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+    // Range scans over idx_timeline_user_created_at_post
+    List<TimelineEntry> findByUserIdOrderByCreatedAtDescPostIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT t FROM TimelineEntry t WHERE t.userId = :userId " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.postId < :postId)) " +
+            "ORDER BY t.createdAt DESC, t.postId DESC")
+    List<TimelineEntry> findPageBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT t.postId FROM TimelineEntry t WHERE t.userId = :userId AND t.postId IN :postIds")
+    List<Long> findExistingPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    // Returns [userId, postId] rows for the pairs that already have an entry
+    @Query("SELECT t.userId, t.postId FROM TimelineEntry t WHERE t.userId IN :userIds AND t.postId IN :postIds")
+    List<Object[]> findExistingEntries(@Param("userIds") Collection<Long> userIds, @Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.userId = :userId AND t.authorId = :authorId")
+    int deleteByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+}
@@ -2,10 +2,70 @@ package com.treble.treble.repository;
 
 
 import com.treble.treble.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByEmail(String email);
 
+    // Keyset chunks for exports; callers pass PageRequest.of(0, size)
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Walks the follower_id side of user_followers in id order, one batch at a time
+    @Query(value = "SELECT follower_id FROM user_followers WHERE user_id = :userId AND follower_id > :afterId " +
+            "ORDER BY follower_id LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowerIdsAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // Walks the user_id side for one follower in id order, over idx_user_followers_follower_user
+    @Query(value = "SELECT user_id FROM user_followers WHERE follower_id = :followerId AND user_id > :afterId " +
+            "ORDER BY user_id LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowingIdsAfter(@Param("followerId") Long followerId, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // Over idx_user_follower_count
+    @Query("SELECT u.id FROM User u WHERE u.followerCount > :threshold")
+    List<Long> findIdsByFollowerCountGreaterThan(@Param("threshold") long threshold);
+
+    // One statement for both rows, so two users following each other lock them in the same order
+    @Modifying
+    @Query("UPDATE User u SET " +
+            "u.followerCount = u.followerCount + CASE WHEN u.id = :userId THEN :delta ELSE 0 END, " +
+            "u.followingCount = u.followingCount + CASE WHEN u.id = :followerId THEN :delta ELSE 0 END " +
+            "WHERE u.id IN (:userId, :followerId)")
+    int adjustFollowCounts(@Param("userId") Long userId, @Param("followerId") Long followerId, @Param("delta") int delta);
+
+    // Returns [id, followerCount, followingCount] rows after the given id, for chunked reconciliation
+    @Query("SELECT u.id, u.followerCount, u.followingCount FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findFollowCounterChunk(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(value = "SELECT user_id, COUNT(*) FROM user_followers WHERE user_id IN (:userIds) GROUP BY user_id", nativeQuery = true)
+    List<Object[]> countFollowersGroupedByUserId(@Param("userIds") Collection<Long> userIds);
+
+    @Query(value = "SELECT follower_id, COUNT(*) FROM user_followers WHERE follower_id IN (:userIds) GROUP BY follower_id", nativeQuery = true)
+    List<Object[]> countFollowingGroupedByUserId(@Param("userIds") Collection<Long> userIds);
+
+    // Only overwrites the counters if nobody changed them since they were read
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = :followerCount, u.followingCount = :followingCount " +
+            "WHERE u.id = :userId AND u.followerCount = :expectedFollowerCount AND u.followingCount = :expectedFollowingCount")
+    int resetFollowCounters(@Param("userId") Long userId,
+                            @Param("followerCount") int followerCount,
+                            @Param("followingCount") int followingCount,
+                            @Param("expectedFollowerCount") int expectedFollowerCount,
+                            @Param("expectedFollowingCount") int expectedFollowingCount);
+
+    // Which of the given users the follower follows, over idx_user_followers_follower_user
+    @Query(value = "SELECT user_id FROM user_followers WHERE follower_id = :followerId AND user_id IN (:userIds)", nativeQuery = true)
+    List<Long> findFollowedAmong(@Param("followerId") Long followerId, @Param("userIds") Collection<Long> userIds);
+
+    // Which of the given users follow the user, over the user_followers primary key
+    @Query(value = "SELECT follower_id FROM user_followers WHERE user_id = :userId AND follower_id IN (:followerIds)", nativeQuery = true)
+    List<Long> findFollowersAmong(@Param("userId") Long userId, @Param("followerIds") Collection<Long> followerIds);
+
 }
 
@@ -2,17 +2,22 @@ package com.treble.treble.service;
 
 import com.treble.treble.dto.CommentRequest;
 import com.treble.treble.dto.CommentResponse;
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.UserDTO;
 import com.treble.treble.exception.ResourceNotFoundException;
 import com.treble.treble.model.Comment;
 import com.treble.treble.model.Post;
-import com.treble.treble.model.User;
 import com.treble.treble.repository.CommentRepository;
 import com.treble.treble.repository.PostRepository;
+import com.treble.treble.util.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,8 +30,21 @@ public class CommentService {
     private PostRepository postRepository;
 
     @Autowired
-    private UserService userService;
+    private UserProfileCache userProfileCache;
 
+    @Autowired
+    private RequestBatchLoader requestBatchLoader;
+
+    @Autowired
+    private RankedFeedIndex rankedFeedIndex;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private HotCounters hotCounters;
+
+    @Transactional
     public CommentResponse createComment(Long postId, Long userId, CommentRequest commentRequest) {
         // Verify post exists
         Post post = postRepository.findById(postId)
@@ -35,32 +53,40 @@ public class CommentService {
         // Create and save the comment
         Comment comment = new Comment(postId, userId, commentRequest.getContent());
         Comment savedComment = commentRepository.save(comment);
+        adjustCommentCount(postId, 1);
+        rankedFeedIndex.recordComments(postId, 1);
+        contentVersions.bump(ContentVersions.POSTS);
 
         // Get user info for response
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(userId);
 
         return new CommentResponse(savedComment, userDTO);
     }
 
     public List<CommentResponse> getCommentsByPostId(Long postId) {
         List<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtAsc(postId);
+        return toResponses(comments);
+    }
 
-        return comments.stream()
-                .map(comment -> {
-                    User user = userService.getUserById(comment.getUserId());
-                    UserDTO userDTO = convertToDTO(user);
-                    return new CommentResponse(comment, userDTO);
-                })
-                .collect(Collectors.toList());
+    public CursorPage<CommentResponse> getCommentsPage(Long postId, String after, Integer limit) {
+        int pageSize = Cursor.clampPageSize(limit);
+        Cursor cursor = Cursor.decode(after);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        List<Comment> comments = cursor == null
+                ? commentRepository.findByPostIdOrderByCreatedAtAscIdAsc(postId, pageRequest)
+                : commentRepository.findPageAfter(postId, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+
+        return CursorPage.fromRows(comments, pageSize,
+                comment -> new Cursor(comment.getCreatedAt(), comment.getId()),
+                this::toResponses);
     }
 
     public CommentResponse getCommentById(Long id) {
         Comment comment = commentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + id));
 
-        User user = userService.getUserById(comment.getUserId());
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(comment.getUserId());
 
         return new CommentResponse(comment, userDTO);
     }
@@ -79,12 +105,12 @@ public class CommentService {
         Comment updatedComment = commentRepository.save(comment);
 
         // Get user info for response
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(userId);
 
         return new CommentResponse(updatedComment, userDTO);
     }
 
+    @Transactional
     public void deleteComment(Long id, Long userId) {
         Comment comment = commentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + id));
@@ -95,22 +121,48 @@ public class CommentService {
         }
 
         commentRepository.deleteById(id);
+        adjustCommentCount(comment.getPostId(), -1);
+        rankedFeedIndex.recordComments(comment.getPostId(), -1);
+        contentVersions.bump(ContentVersions.POSTS);
     }
 
     public int getCommentCountByPostId(Long postId) {
-        return commentRepository.countByPostId(postId);
+        return hotCounters.read(List.of(postId),
+                () -> postRepository.findCommentCountById(postId).orElse(0) + hotCounters.pendingComments(postId));
+    }
+
+    // Comment count of an already loaded post, including changes not flushed yet
+    public int getCommentCount(Post post) {
+        if (!hotCounters.isEnabled()) {
+            return post.getCommentCount();
+        }
+        // The loaded column may predate a flush, so it is re-read with the pending delta
+        return hotCounters.read(List.of(post.getId()),
+                () -> postRepository.findCommentCountById(post.getId()).orElse(post.getCommentCount())
+                        + hotCounters.pendingComments(post.getId()));
+    }
+
+    private void adjustCommentCount(Long postId, int delta) {
+        if (hotCounters.isEnabled()) {
+            hotCounters.addComments(postId, delta);
+        } else {
+            postRepository.adjustCommentCount(postId, delta);
+        }
     }
 
-    // Helper method to convert User to UserDTO
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
-        dto.setUserRole(user.getUserRole());
-        dto.setGender(user.getGender());
-        dto.setProfilePictureUrl(user.getProfilePictureUrl());
-        return dto;
+    // Resolves all authors of the batch with at most one query for the ones not cached
+    private List<CommentResponse> toResponses(List<Comment> comments) {
+        Set<Long> authorIds = comments.stream().map(Comment::getUserId).collect(Collectors.toSet());
+        Map<Long, UserDTO> authors = requestBatchLoader.users(authorIds);
+
+        return comments.stream()
+                .map(comment -> {
+                    UserDTO userDTO = authors.get(comment.getUserId());
+                    if (userDTO == null) {
+                        throw new ResourceNotFoundException("User not found with id: " + comment.getUserId());
+                    }
+                    return new CommentResponse(comment, userDTO);
+                })
+                .collect(Collectors.toList());
     }
 }
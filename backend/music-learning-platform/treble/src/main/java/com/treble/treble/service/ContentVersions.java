@@ -0,0 +1,47 @@
+package com.treble.treble.service;
+
+import com.treble.treble.util.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version stamps for collections that clients poll, used to build ETags.
+ *
+ * Writers bump a key after their transaction commits and readers take the ETag before
+ * loading anything, so a response is never tagged with a version newer than its data.
+ * The boot time is part of every tag because the counters start over on restart.
+ */
+@Component
+public class ContentVersions {
+
+    public static final String POSTS = "posts";
+    public static final String USERS = "users";
+    public static final String LEARNING_PLANS = "learning-plans";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public static String notifications(Long userId) {
+        return "notifications:" + userId;
+    }
+
+    public void bump(String key) {
+        AfterCommit.run(() -> increment(key));
+    }
+
+    // Strong ETag covering every given key, e.g. "lx3k9q-12-4"
+    public String etag(String... keys) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (String key : keys) {
+            AtomicLong version = versions.get(key);
+            etag.append('-').append(version == null ? 0 : version.get());
+        }
+        return etag.append('"').toString();
+    }
+
+    private void increment(String key) {
+        versions.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+}
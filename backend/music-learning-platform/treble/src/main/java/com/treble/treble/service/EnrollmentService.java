@@ -33,6 +33,9 @@ public class EnrollmentService {
     @Autowired
     private LearningPlanService learningPlanService;
 
+    @Autowired
+    private ContentVersions contentVersions;
+
     public List<EnrollmentResponse> getUserEnrollments(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
@@ -69,6 +72,8 @@ public class EnrollmentService {
         enrollment.setCompleted(false);
 
         Enrollment savedEnrollment = enrollmentRepository.save(enrollment);
+        // Enrollment counts and the viewer's enrolled flag are part of the plan list
+        contentVersions.bump(ContentVersions.LEARNING_PLANS);
         LearningPlanResponse learningPlanResponse = learningPlanService.convertToResponse(learningPlan, user);
 
         return convertToResponse(savedEnrollment, learningPlanResponse);
@@ -85,6 +90,7 @@ public class EnrollmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Enrollment not found"));
 
         enrollmentRepository.delete(enrollment);
+        contentVersions.bump(ContentVersions.LEARNING_PLANS);
     }
 
     public EnrollmentResponse markLearningPlanAsCompleted(Long learningPlanId, Long userId) {
@@ -0,0 +1,116 @@
+package com.treble.treble.service;
+
+import com.treble.treble.dto.PostResponse;
+import com.treble.treble.dto.UserDTO;
+import com.treble.treble.exception.ResourceNotFoundException;
+import com.treble.treble.model.Post;
+import com.treble.treble.model.PostMedia;
+import com.treble.treble.repository.LikeRepository;
+import com.treble.treble.repository.PostMediaRepository;
+import com.treble.treble.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link PostResponse} lists for a page of posts with a fixed number of queries:
+ * one each for viewer likes, media and authors missing from the profile cache, no matter
+ * how many posts are on the page.
+ * Like and comment counts come from the denormalized columns on {@link Post}
+ * plus any changes still buffered in memory. With hot counters on, the columns are
+ * re-read together with the pending deltas, so a flush committing after the posts were
+ * loaded is neither counted twice nor dropped.
+ */
+@Service
+public class FeedAssembler {
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private PostMediaRepository postMediaRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private LikeIndex likeIndex;
+
+    @Autowired
+    private HotCounters hotCounters;
+
+    public List<PostResponse> assemble(List<Post> posts, Long viewerId) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toSet());
+        Set<Long> authorIds = posts.stream().map(Post::getUserId).collect(Collectors.toSet());
+
+        Map<Long, UserDTO> authors = userProfileCache.getAll(authorIds);
+        Set<Long> likedPostIds = viewerId == null
+                ? Collections.emptySet()
+                : likeIndex.isReady()
+                        ? likeIndex.likedAmong(viewerId, postIds)
+                        : new HashSet<>(likeRepository.findLikedPostIds(viewerId, postIds));
+        Map<Long, List<PostMedia>> mediaByPostId = postMediaRepository.findByPostIdInOrderByIdAsc(postIds).stream()
+                .collect(Collectors.groupingBy(media -> media.getPost().getId()));
+        Map<Long, int[]> counters = readCounters(posts, postIds);
+
+        return posts.stream()
+                .map(post -> {
+                    UserDTO userDTO = authors.get(post.getUserId());
+                    if (userDTO == null) {
+                        throw new ResourceNotFoundException("User not found with id: " + post.getUserId());
+                    }
+                    // Likes still sitting in the write-behind buffer count as applied
+                    Boolean buffered = viewerId == null ? null : likeWriteBuffer.bufferedState(post.getId(), viewerId);
+                    boolean hasLiked = buffered != null ? buffered : likedPostIds.contains(post.getId());
+                    // Deleted since the page was loaded; the loaded columns are as good as any
+                    int[] postCounters = counters.getOrDefault(post.getId(),
+                            new int[]{post.getLikeCount(), post.getCommentCount()});
+                    return new PostResponse(
+                            post,
+                            mediaByPostId.getOrDefault(post.getId(), Collections.emptyList()),
+                            userDTO,
+                            postCounters[1],
+                            postCounters[0] + likeWriteBuffer.unappliedDelta(post.getId()),
+                            hasLiked
+                    );
+                })
+                .collect(Collectors.toList());
+    }
+
+    // [likeCount, commentCount] per post, including hot counter deltas not flushed yet
+    private Map<Long, int[]> readCounters(List<Post> posts, Set<Long> postIds) {
+        Map<Long, int[]> counters = new HashMap<>();
+        if (!hotCounters.isEnabled()) {
+            posts.forEach(post -> counters.put(post.getId(), new int[]{post.getLikeCount(), post.getCommentCount()}));
+            return counters;
+        }
+        return hotCounters.read(postIds, () -> {
+            for (Object[] row : postRepository.findCounters(postIds)) {
+                Long postId = (Long) row[0];
+                counters.put(postId, new int[]{
+                        (Integer) row[1] + hotCounters.pendingLikes(postId),
+                        (Integer) row[2] + hotCounters.pendingComments(postId)
+                });
+            }
+            return counters;
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.PostRepository;
+import com.treble.treble.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the accounts whose follower count is above the fan-out threshold. Their posts
+ * are not pushed into follower timelines; TimelineService merges them in at read time.
+ * Reads the maintained follower_count column, so a refresh does not scan user_followers.
+ *
+ * Posts published while an account was above the threshold were never fanned out, so an
+ * account that drops below it stays merged as "departed" until TimelineService has
+ * fanned those posts out. Departures missed while the application was down are found
+ * on the first refresh.
+ */
+@Component
+public class HighFollowerRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(HighFollowerRegistry.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${app.timeline.fanout-follower-threshold:5000}")
+    private long followerThreshold;
+
+    private volatile Set<Long> highFollowerIds = Collections.emptySet();
+    private final Set<Long> departedIds = ConcurrentHashMap.newKeySet();
+    private boolean refreshed;
+
+    // Whether new posts of the user skip fan-out
+    public boolean isHighFollower(Long userId) {
+        return highFollowerIds.contains(userId);
+    }
+
+    // Accounts whose posts are merged at read time: high-follower and departed ones
+    public Set<Long> getMergedAuthorIds() {
+        if (departedIds.isEmpty()) {
+            return highFollowerIds;
+        }
+        Set<Long> merged = new HashSet<>(highFollowerIds);
+        merged.addAll(departedIds);
+        return merged;
+    }
+
+    public Set<Long> getDepartedIds() {
+        return new HashSet<>(departedIds);
+    }
+
+    // Called once all of the account's skipped posts are in its followers' timelines
+    public void markCaughtUp(Long userId) {
+        departedIds.remove(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.timeline.high-follower-refresh-ms:300000}",
+            initialDelayString = "${app.timeline.high-follower-refresh-ms:300000}")
+    public synchronized void refresh() {
+        Set<Long> current = Collections.unmodifiableSet(
+                new HashSet<>(userRepository.findIdsByFollowerCountGreaterThan(followerThreshold)));
+
+        Set<Long> departed = new HashSet<>(refreshed ? highFollowerIds : postRepository.findAuthorsWithoutFanOut());
+        departed.removeAll(current);
+        // Added before the swap, so a departing account is never missing from the merged set
+        departedIds.addAll(departed);
+        highFollowerIds = current;
+        // Back above the threshold, so merged as usual
+        departedIds.removeAll(current);
+        refreshed = true;
+
+        if (!departed.isEmpty()) {
+            logger.info("{} accounts dropped below the fan-out threshold and will be caught up", departed.size());
+        }
+        logger.debug("{} accounts are above the fan-out threshold of {} followers", current.size(), followerThreshold);
+    }
+}
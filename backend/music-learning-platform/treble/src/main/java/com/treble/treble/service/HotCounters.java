@@ -0,0 +1,287 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.PostJdbcRepository;
+import com.treble.treble.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Absorbs like and comment counter changes in striped in-memory counters, enabled with
+ * {@code app.counters.hot.enabled}.
+ *
+ * A viral post would otherwise take a row lock on its {@code posts} row for every like.
+ * Here increments land in a {@link LongAdder} per post and a scheduled flush writes each
+ * post's net change as one batched UPDATE. Reads add {@link #pendingLikes}/{@link #pendingComments}
+ * to the persisted columns. Deltas lost in a crash are repaired by the counter
+ * reconciliation job, which also runs on startup.
+ *
+ * Posts are hashed onto lock stripes. A flush holds the write locks of its posts from
+ * before its UPDATE commits until the in-flight deltas are settled, and pending reads
+ * take the read lock, so no reader sees a delta both in the column and in memory.
+ */
+@Component
+public class HotCounters {
+    private static final Logger logger = LoggerFactory.getLogger(HotCounters.class);
+
+    // Flushes an entry must stay at zero before it is dropped from the map
+    private static final int IDLE_FLUSHES_BEFORE_EVICTION = 10;
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private PostJdbcRepository postJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.counters.hot.enabled:false}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<Long, PostDeltas> deltas = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[LOCK_STRIPES];
+    // Evicted on the previous flush; drained once more in case an increment raced the eviction
+    private List<PostDeltas> evicted = new ArrayList<>();
+
+    private Counter flushedPosts;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        flushedPosts = meterRegistry.counter("counters.hot.flushed");
+        Gauge.builder("counters.hot.posts", deltas, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Applied once the caller's transaction commits, so rolled back likes never count
+    public void addLikes(Long postId, int delta) {
+        record(postId, delta, 0);
+    }
+
+    public void addComments(Long postId, int delta) {
+        record(postId, 0, delta);
+    }
+
+    // Change to the post's like_count that is not committed yet
+    public int pendingLikes(Long postId) {
+        Lock lock = stripeOf(postId).readLock();
+        lock.lock();
+        try {
+            PostDeltas postDeltas = deltas.get(postId);
+            return postDeltas == null ? 0 : (int) (postDeltas.likes.sum() + postDeltas.flushingLikes.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pendingComments(Long postId) {
+        Lock lock = stripeOf(postId).readLock();
+        lock.lock();
+        try {
+            PostDeltas postDeltas = deltas.get(postId);
+            return postDeltas == null ? 0 : (int) (postDeltas.comments.sum() + postDeltas.flushingComments.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Also true while a transaction that changed the post is committing, before its delta is recorded
+    public boolean hasPending(Long postId) {
+        PostDeltas postDeltas = deltas.get(postId);
+        return postDeltas != null && postDeltas.openTransactions.get() > 0
+                || pendingLikes(postId) != 0 || pendingComments(postId) != 0;
+    }
+
+    /**
+     * Runs a read of persisted counters plus their pending deltas with no flush of those
+     * posts committing in between, so the column and the delta agree.
+     */
+    public <T> T read(Collection<Long> postIds, Supplier<T> reader) {
+        if (!enabled) {
+            return reader.get();
+        }
+        List<Lock> locks = new ArrayList<>();
+        for (int stripe : stripeIndexes(postIds)) {
+            locks.add(stripes[stripe].readLock());
+        }
+        locks.forEach(Lock::lock);
+        try {
+            return reader.get();
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.hot.flush-interval-ms:500}")
+    public synchronized void flush() {
+        List<PostDeltas> draining = new ArrayList<>();
+        List<long[]> batch = new ArrayList<>();
+
+        for (PostDeltas postDeltas : evicted) {
+            drain(postDeltas, draining, batch);
+        }
+        evicted = new ArrayList<>();
+
+        for (PostDeltas postDeltas : deltas.values()) {
+            if (drain(postDeltas, draining, batch)) {
+                postDeltas.idleFlushes = 0;
+            } else if (++postDeltas.idleFlushes >= IDLE_FLUSHES_BEFORE_EVICTION && evictIfIdle(postDeltas)) {
+                evicted.add(postDeltas);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Lock> locks = new ArrayList<>();
+        for (int stripe : stripeIndexes(batch.stream().map(delta -> delta[0]).collect(Collectors.toList()))) {
+            locks.add(stripes[stripe].writeLock());
+        }
+        locks.forEach(Lock::lock);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                postJdbcRepository.adjustCounters(batch);
+                // Runs on this thread right after the commit, while the stripes are still held
+                AfterCommit.run(() -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        settle(draining.get(i), batch.get(i));
+                    }
+                });
+            });
+            flushedPosts.increment(batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Counter flush failed, retrying {} posts on the next run: {}", batch.size(), e.getMessage(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                PostDeltas postDeltas = draining.get(i);
+                postDeltas.likes.add(batch.get(i)[1]);
+                postDeltas.comments.add(batch.get(i)[2]);
+                settle(postDeltas, batch.get(i));
+            }
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Long postId, int likes, int comments) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PostDeltas postDeltas = deltas.computeIfAbsent(postId, PostDeltas::new);
+            postDeltas.likes.add(likes);
+            postDeltas.comments.add(comments);
+            return;
+        }
+
+        // Counted as open from before the row commits, so reconciliation skips the post until the delta lands
+        PostDeltas postDeltas = deltas.compute(postId, (id, current) -> {
+            PostDeltas open = current != null ? current : new PostDeltas(id);
+            open.openTransactions.incrementAndGet();
+            return open;
+        });
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    postDeltas.likes.add(likes);
+                    postDeltas.comments.add(comments);
+                }
+                postDeltas.openTransactions.decrementAndGet();
+            }
+        });
+    }
+
+    // Entries with a transaction still open stay, since that transaction holds on to them
+    private boolean evictIfIdle(PostDeltas postDeltas) {
+        boolean[] removed = new boolean[1];
+        deltas.computeIfPresent(postDeltas.postId, (id, current) -> {
+            if (current != postDeltas || current.openTransactions.get() > 0) {
+                return current;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private ReentrantReadWriteLock stripeOf(Long postId) {
+        return stripes[stripeIndex(postId)];
+    }
+
+    private int stripeIndex(long postId) {
+        return Math.floorMod(Long.hashCode(postId * 0x9E3779B97F4A7C15L), LOCK_STRIPES);
+    }
+
+    // Distinct and ascending, the order every caller takes them in
+    private int[] stripeIndexes(Collection<Long> postIds) {
+        return postIds.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+    }
+
+    // Moves the pending deltas to in flight; returns false when there was nothing to move
+    private boolean drain(PostDeltas postDeltas, List<PostDeltas> draining, List<long[]> batch) {
+        long likes = postDeltas.likes.sumThenReset();
+        long comments = postDeltas.comments.sumThenReset();
+        if (likes == 0 && comments == 0) {
+            return false;
+        }
+        // Readers see the delta in either the adder or the in-flight counter, never neither
+        postDeltas.flushingLikes.addAndGet(likes);
+        postDeltas.flushingComments.addAndGet(comments);
+        draining.add(postDeltas);
+        batch.add(new long[]{postDeltas.postId, likes, comments});
+        return true;
+    }
+
+    private void settle(PostDeltas postDeltas, long[] delta) {
+        postDeltas.flushingLikes.addAndGet(-delta[1]);
+        postDeltas.flushingComments.addAndGet(-delta[2]);
+    }
+
+    private static final class PostDeltas {
+        private final long postId;
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder comments = new LongAdder();
+        private final AtomicLong flushingLikes = new AtomicLong();
+        private final AtomicLong flushingComments = new AtomicLong();
+        private final AtomicInteger openTransactions = new AtomicInteger();
+        // Only touched by the synchronized flush
+        private int idleFlushes;
+
+        private PostDeltas(long postId) {
+            this.postId = postId;
+        }
+    }
+}
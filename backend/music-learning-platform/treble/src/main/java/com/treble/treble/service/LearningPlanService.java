@@ -1,5 +1,6 @@
 package com.treble.treble.service;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.LearningPlanRequest;
 import com.treble.treble.dto.LearningPlanResponse;
 import com.treble.treble.dto.UserDTO;
@@ -9,10 +10,12 @@ import com.treble.treble.model.User;
 import com.treble.treble.repository.EnrollmentRepository;
 import com.treble.treble.repository.LearningPlanRepository;
 import com.treble.treble.repository.UserRepository;
+import com.treble.treble.util.Cursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -37,6 +40,9 @@ public class LearningPlanService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private ContentVersions contentVersions;
+
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
@@ -61,7 +67,8 @@ public class LearningPlanService {
         final User user = currentUser;
 
         try {
-            List<LearningPlan> plans = learningPlanRepository.findAllByOrderByCreatedAtDesc();
+            List<LearningPlan> plans = learningPlanRepository.findAllByOrderByCreatedAtDescIdDesc(
+                    PageRequest.of(0, Cursor.MAX_PAGE_SIZE));
             logger.info("Found {} learning plans", plans.size());
 
             return plans.stream()
@@ -73,6 +80,36 @@ public class LearningPlanService {
         }
     }
 
+    public CursorPage<LearningPlanResponse> getLearningPlansPage(Long userId, String cursor, Integer limit) {
+        logger.info("Fetching learning plan page for userId: {}, cursor: {}", userId, cursor);
+
+        User user = null;
+        if (userId != null) {
+            try {
+                user = userRepository.findById(userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+            } catch (Exception e) {
+                logger.error("Error finding user with id {}: {}", userId, e.getMessage());
+                // Continue without user context
+            }
+        }
+
+        final User currentUser = user;
+        int pageSize = Cursor.clampPageSize(limit);
+        Cursor after = Cursor.decode(cursor);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        List<LearningPlan> plans = after == null
+                ? learningPlanRepository.findAllByOrderByCreatedAtDescIdDesc(pageRequest)
+                : learningPlanRepository.findPageBefore(after.getCreatedAt(), after.getId(), pageRequest);
+
+        return CursorPage.fromRows(plans, pageSize,
+                learningPlan -> new Cursor(learningPlan.getCreatedAt(), learningPlan.getId()),
+                page -> page.stream()
+                        .map(learningPlan -> convertToResponse(learningPlan, currentUser))
+                        .collect(Collectors.toList()));
+    }
+
     public LearningPlanResponse getLearningPlanById(Long id, Long userId) {
         logger.info("Fetching learning plan with id: {} for userId: {}", id, userId);
 
@@ -128,6 +165,7 @@ public class LearningPlanService {
         }
 
         LearningPlan savedLearningPlan = learningPlanRepository.save(learningPlan);
+        contentVersions.bump(ContentVersions.LEARNING_PLANS);
         logger.info("Learning plan created with id: {}", savedLearningPlan.getId());
 
         return convertToResponse(savedLearningPlan, null);
@@ -182,6 +220,7 @@ public class LearningPlanService {
         }
 
         LearningPlan updatedLearningPlan = learningPlanRepository.save(learningPlan);
+        contentVersions.bump(ContentVersions.LEARNING_PLANS);
         logger.info("Learning plan updated with id: {}", updatedLearningPlan.getId());
 
         return convertToResponse(updatedLearningPlan, null);
@@ -216,6 +255,7 @@ public class LearningPlanService {
         }
 
         learningPlanRepository.delete(learningPlan);
+        contentVersions.bump(ContentVersions.LEARNING_PLANS);
         logger.info("Learning plan deleted with id: {}", id);
     }
 
@@ -0,0 +1,193 @@
+package com.treble.treble.service;
+
+import com.treble.treble.util.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of committed likes: one compressed bitmap of liker user ids per post.
+ *
+ * Loaded from the likes table at startup and kept current after each like or unlike
+ * commits. Until loading finishes, or if a user id ever exceeds the int range a bitmap
+ * can hold, {@link #isReady()} is false and callers fall back to the database.
+ */
+@Component
+public class LikeIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LikeIndex.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.likes.index.enabled:true}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<Long, RoaringBitmap> likersByPost = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile boolean fitsInBitmaps = true;
+    // Changes committed while the initial load runs, replayed over it so none are lost
+    private List<long[]> changesDuringLoad;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("likes.index.posts", likersByPost, ConcurrentHashMap::size).register(meterRegistry);
+        Gauge.builder("likes.index.bytes", this, LikeIndex::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            changesDuringLoad = new ArrayList<>();
+        }
+
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT post_id, user_id FROM likes");
+            statement.setFetchSize(1000);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            apply(rs.getLong(1), rs.getLong(2), true);
+            rows[0]++;
+        });
+
+        synchronized (this) {
+            for (long[] change : changesDuringLoad) {
+                apply(change[0], change[1], change[2] == 1);
+            }
+            changesDuringLoad = null;
+        }
+        likersByPost.values().forEach(bitmap -> {
+            synchronized (bitmap) {
+                bitmap.runOptimize();
+            }
+        });
+
+        ready = fitsInBitmaps;
+        logger.info("Like index loaded {} likes over {} posts, {} bytes", rows[0], likersByPost.size(), sizeInBytes());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void recordLike(Long postId, Long userId) {
+        AfterCommit.run(() -> change(postId, userId, true));
+    }
+
+    public void recordUnlike(Long postId, Long userId) {
+        AfterCommit.run(() -> change(postId, userId, false));
+    }
+
+    public void removePost(Long postId) {
+        AfterCommit.run(() -> likersByPost.remove(postId));
+    }
+
+    public boolean hasLiked(Long postId, Long userId) {
+        RoaringBitmap likers = likersByPost.get(postId);
+        if (likers == null || userId > Integer.MAX_VALUE) {
+            return false;
+        }
+        synchronized (likers) {
+            return likers.contains(userId.intValue());
+        }
+    }
+
+    // Which of the posts the user has liked, one bitmap probe per post
+    public Set<Long> likedAmong(Long userId, Collection<Long> postIds) {
+        Set<Long> liked = new HashSet<>();
+        for (Long postId : postIds) {
+            if (hasLiked(postId, userId)) {
+                liked.add(postId);
+            }
+        }
+        return liked;
+    }
+
+    public int likeCount(Long postId) {
+        RoaringBitmap likers = likersByPost.get(postId);
+        if (likers == null) {
+            return 0;
+        }
+        synchronized (likers) {
+            return likers.getCardinality();
+        }
+    }
+
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (RoaringBitmap bitmap : likersByPost.values()) {
+            synchronized (bitmap) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void change(Long postId, Long userId, boolean liked) {
+        if (!enabled) {
+            return;
+        }
+        // Serialized with the replay at the end of load() so changes keep their order
+        synchronized (this) {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(new long[]{postId, userId, liked ? 1 : 0});
+            }
+            apply(postId, userId, liked);
+        }
+    }
+
+    private void apply(long postId, long userId, boolean liked) {
+        if (userId > Integer.MAX_VALUE) {
+            if (fitsInBitmaps) {
+                logger.warn("User id {} does not fit the like index, falling back to database lookups", userId);
+            }
+            fitsInBitmaps = false;
+            ready = false;
+            return;
+        }
+
+        // Both branches run under the map's bin lock so an add can never land in a bitmap being dropped
+        if (liked) {
+            likersByPost.compute(postId, (id, likers) -> {
+                RoaringBitmap bitmap = likers != null ? likers : new RoaringBitmap();
+                synchronized (bitmap) {
+                    bitmap.add((int) userId);
+                }
+                return bitmap;
+            });
+        } else {
+            likersByPost.computeIfPresent(postId, (id, likers) -> {
+                synchronized (likers) {
+                    likers.remove((int) userId);
+                    return likers.isEmpty() ? null : likers;
+                }
+            });
+        }
+    }
+}
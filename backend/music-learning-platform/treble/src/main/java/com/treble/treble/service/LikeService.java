@@ -1,22 +1,30 @@
 package com.treble.treble.service;
 
 import com.treble.treble.dto.LikeResponse;
+import com.treble.treble.dto.LikeStatusResponse;
 import com.treble.treble.dto.UserDTO;
 import com.treble.treble.exception.ResourceNotFoundException;
 import com.treble.treble.model.Like;
 import com.treble.treble.model.Post;
-import com.treble.treble.model.User;
+import com.treble.treble.repository.LikeJdbcRepository;
 import com.treble.treble.repository.LikeRepository;
 import com.treble.treble.repository.PostRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class LikeService {
+    private static final int MAX_STATUS_POSTS = 200;
 
     @Autowired
     private LikeRepository likeRepository;
@@ -25,86 +33,193 @@ public class LikeService {
     private PostRepository postRepository;
 
     @Autowired
-    private UserService userService;
+    private UserProfileCache userProfileCache;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private RankedFeedIndex rankedFeedIndex;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private LikeIndex likeIndex;
+
+    @Autowired
+    private LikeJdbcRepository likeJdbcRepository;
+
+    @Autowired
+    private HotCounters hotCounters;
+
+    /**
+     * Idempotent like: liking an already liked post returns the existing like. Only a real
+     * change updates the counter and notifies the owner.
+     */
     @Transactional
     public LikeResponse likePost(Long postId, Long userId) {
-        // Check if post exists
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+        Long ownerId = getPostOwnerId(postId);
 
         // Check if user is the post owner
-        if (post.getUserId().equals(userId)) {
+        if (ownerId.equals(userId)) {
             throw new IllegalArgumentException("You cannot like your own post");
         }
 
-        // Check if user has already liked the post
-        if (likeRepository.existsByPostIdAndUserId(postId, userId)) {
-            throw new IllegalArgumentException("You have already liked this post");
-        }
-
-        // Create and save the like
-        Like like = new Like(postId, userId);
-        Like savedLike = likeRepository.save(like);
-
         // Get user info for response
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(userId);
 
-        // Create notification for post owner
-        notificationService.createLikeNotification(post.getUserId(), userId, postId);
+        Like like = new Like(postId, userId);
+        if (likeWriteBuffer.isEnabled()) {
+            // The flush does the writes; the like has no id until then
+            likeWriteBuffer.record(postId, userId, ownerId, true, persistedLike(postId, userId));
+        } else if (likeJdbcRepository.insertIfAbsent(like)) {
+            adjustLikeCount(postId, 1);
+            likeIndex.recordLike(postId, userId);
+            rankedFeedIndex.recordLikes(postId, 1);
+            contentVersions.bump(ContentVersions.POSTS);
+
+            // Create notification for post owner
+            notificationService.createLikeNotification(ownerId, userId, postId);
+        } else {
+            like = likeRepository.findByPostIdAndUserId(postId, userId).orElse(like);
+        }
 
-        return new LikeResponse(savedLike, userDTO);
+        return new LikeResponse(like, userDTO);
     }
 
+    // Idempotent unlike: removing a like that is not there is not an error
     @Transactional
     public void unlikePost(Long postId, Long userId) {
-        // Check if post exists
-        if (!postRepository.existsById(postId)) {
-            throw new ResourceNotFoundException("Post not found with id: " + postId);
+        Long ownerId = getPostOwnerId(postId);
+
+        if (likeWriteBuffer.isEnabled()) {
+            likeWriteBuffer.record(postId, userId, ownerId, false, persistedLike(postId, userId));
+        } else if (likeJdbcRepository.deleteLike(postId, userId) > 0) {
+            adjustLikeCount(postId, -1);
+            likeIndex.recordUnlike(postId, userId);
+            rankedFeedIndex.recordLikes(postId, -1);
+            contentVersions.bump(ContentVersions.POSTS);
         }
+    }
 
-        // Check if like exists
-        Like like = likeRepository.findByPostIdAndUserId(postId, userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Like not found for post id: " + postId + " and user id: " + userId));
+    private void adjustLikeCount(Long postId, int delta) {
+        if (hotCounters.isEnabled()) {
+            hotCounters.addLikes(postId, delta);
+        } else {
+            postRepository.adjustLikeCount(postId, delta);
+        }
+    }
 
-        // Delete the like
-        likeRepository.delete(like);
+    private Long getPostOwnerId(Long postId) {
+        return postRepository.findUserIdById(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+    }
+
+    // Skips the lookup when the buffer already decides the current state
+    private boolean persistedLike(Long postId, Long userId) {
+        return likeWriteBuffer.bufferedState(postId, userId) == null && hasCommittedLike(postId, userId);
     }
 
     public List<LikeResponse> getLikesByPostId(Long postId) {
         List<Like> likes = likeRepository.findByPostId(postId);
+        Map<Long, UserDTO> likers = userProfileCache.getAll(
+                likes.stream().map(Like::getUserId).collect(Collectors.toSet()));
 
         return likes.stream()
                 .map(like -> {
-                    User user = userService.getUserById(like.getUserId());
-                    UserDTO userDTO = convertToDTO(user);
+                    UserDTO userDTO = likers.get(like.getUserId());
+                    if (userDTO == null) {
+                        throw new ResourceNotFoundException("User not found with id: " + like.getUserId());
+                    }
                     return new LikeResponse(like, userDTO);
                 })
                 .collect(Collectors.toList());
     }
 
     public int getLikeCountByPostId(Long postId) {
-        return likeRepository.countByPostId(postId);
+        // The index holds the like rows themselves, so it never lags behind the hot counters
+        int committed = likeIndex.isReady()
+                ? likeIndex.likeCount(postId)
+                : hotCounters.read(List.of(postId),
+                        () -> postRepository.findLikeCountById(postId).orElse(0) + hotCounters.pendingLikes(postId));
+        return committed + likeWriteBuffer.unappliedDelta(postId);
+    }
+
+    /**
+     * Like counts and the viewer's liked flags for a batch of posts, with at most one
+     * grouped query for each. Unknown posts report zero likes, like the single-post endpoints.
+     */
+    public List<LikeStatusResponse> getLikeStatuses(List<Long> postIds, Long viewerId) {
+        if (postIds == null || postIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> ids = new LinkedHashSet<>(postIds);
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("postIds must not contain null");
+        }
+        if (ids.size() > MAX_STATUS_POSTS) {
+            throw new IllegalArgumentException("At most " + MAX_STATUS_POSTS + " posts per request");
+        }
+
+        Map<Long, Integer> committedCounts = new HashMap<>();
+        if (likeIndex.isReady()) {
+            ids.forEach(postId -> committedCounts.put(postId, likeIndex.likeCount(postId)));
+        } else {
+            hotCounters.read(ids, () -> {
+                for (Object[] row : postRepository.findLikeCounts(ids)) {
+                    Long postId = (Long) row[0];
+                    committedCounts.put(postId, (Integer) row[1] + hotCounters.pendingLikes(postId));
+                }
+                return null;
+            });
+        }
+
+        Set<Long> likedPostIds;
+        if (viewerId == null) {
+            likedPostIds = Collections.emptySet();
+        } else if (likeIndex.isReady()) {
+            likedPostIds = likeIndex.likedAmong(viewerId, ids);
+        } else {
+            likedPostIds = new HashSet<>(likeRepository.findLikedPostIds(viewerId, ids));
+        }
+
+        return ids.stream()
+                .map(postId -> {
+                    Boolean buffered = viewerId == null ? null : likeWriteBuffer.bufferedState(postId, viewerId);
+                    boolean hasLiked = buffered != null ? buffered : likedPostIds.contains(postId);
+                    int likeCount = committedCounts.getOrDefault(postId, 0) + likeWriteBuffer.unappliedDelta(postId);
+                    return new LikeStatusResponse(postId, likeCount, hasLiked);
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Like count of an already loaded post, including buffered likes
+    public int getLikeCount(Post post) {
+        Long postId = post.getId();
+        // The loaded column may predate a flush, so it is re-read with the pending delta
+        int committed = !hotCounters.isEnabled()
+                ? post.getLikeCount()
+                : hotCounters.read(List.of(postId),
+                        () -> postRepository.findLikeCountById(postId).orElse(post.getLikeCount()) + hotCounters.pendingLikes(postId));
+        return committed + likeWriteBuffer.unappliedDelta(postId);
     }
 
     public boolean hasUserLikedPost(Long postId, Long userId) {
-        return likeRepository.existsByPostIdAndUserId(postId, userId);
+        Boolean buffered = likeWriteBuffer.bufferedState(postId, userId);
+        if (buffered != null) {
+            return buffered;
+        }
+        return hasCommittedLike(postId, userId);
     }
 
-    // Helper method to convert User to UserDTO
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
-        dto.setUserRole(user.getUserRole());
-        dto.setGender(user.getGender());
-        dto.setProfilePictureUrl(user.getProfilePictureUrl());
-        return dto;
+    private boolean hasCommittedLike(Long postId, Long userId) {
+        if (likeIndex.isReady()) {
+            return likeIndex.hasLiked(postId, userId);
+        }
+        return likeRepository.existsByPostIdAndUserId(postId, userId);
     }
 }
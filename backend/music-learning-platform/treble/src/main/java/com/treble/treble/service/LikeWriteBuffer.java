@@ -0,0 +1,274 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.LikeJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for like and unlike intents, enabled with {@code app.likes.write-behind}.
+ *
+ * Intents are keyed by (post, user) and the last one wins, so a like followed by an unlike
+ * before the next flush cancels out and never reaches the database. A scheduled flush
+ * writes the surviving changes as JDBC batches in one transaction: inserts, deletes and one
+ * counter update per post, with like notifications queued once it commits. Until a change is committed, reads
+ * go through {@link #bufferedState} and {@link #unappliedDelta} so clients see it at once.
+ */
+@Component
+public class LikeWriteBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(LikeWriteBuffer.class);
+
+    @Autowired
+    private LikeJdbcRepository likeJdbcRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private RankedFeedIndex rankedFeedIndex;
+
+    @Autowired
+    private LikeIndex likeIndex;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.likes.write-behind:false}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<LikeKey, Intent> pending = new ConcurrentHashMap<>();
+    // Drained by the running flush but not committed yet; still part of what readers see
+    private final ConcurrentHashMap<LikeKey, Intent> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> unappliedDeltas = new ConcurrentHashMap<>();
+
+    private Counter flushedChanges;
+    private Counter collapsedIntents;
+
+    @PostConstruct
+    public void init() {
+        flushedChanges = meterRegistry.counter("likes.write_behind.flushed");
+        collapsedIntents = meterRegistry.counter("likes.write_behind.collapsed");
+        Gauge.builder("likes.write_behind.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the user likes the post according to intents not yet committed, or null when
+     * nothing is buffered and the database is authoritative.
+     */
+    public Boolean bufferedState(Long postId, Long userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Intent intent = pending.get(key);
+        if (intent == null) {
+            intent = inFlight.get(key);
+        }
+        return intent == null ? null : intent.liked;
+    }
+
+    // Change to the post's like_count that is buffered but not committed yet
+    public int unappliedDelta(Long postId) {
+        return unappliedDeltas.getOrDefault(postId, 0);
+    }
+
+    /**
+     * Buffers a like or unlike and returns whether it changes the current state; a repeat of
+     * the current state is a no-op. {@code persistedLiked} is the database state the caller
+     * read before calling; it only matters when nothing is buffered for the pair yet.
+     */
+    public boolean record(Long postId, Long userId, Long postOwnerId, boolean liked, boolean persistedLiked) {
+        LikeKey key = new LikeKey(postId, userId);
+        boolean[] changed = {false};
+        pending.compute(key, (k, current) -> {
+            if (current != null) {
+                if (current.liked == liked) {
+                    return current;
+                }
+                changed[0] = true;
+                return new Intent(postOwnerId, current.baseline, liked);
+            }
+            // An in-flight flush will have committed its state before this intent is flushed
+            Intent flushing = inFlight.get(k);
+            boolean baseline = flushing != null ? flushing.liked : persistedLiked;
+            if (baseline == liked) {
+                return null;
+            }
+            changed[0] = true;
+            return new Intent(postOwnerId, baseline, liked);
+        });
+        if (changed[0]) {
+            unappliedDeltas.merge(postId, liked ? 1 : -1, LikeWriteBuffer::sumOrRemove);
+        }
+        return changed[0];
+    }
+
+    @Scheduled(fixedDelayString = "${app.likes.flush-interval-ms:50}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<long[]> inserts = new ArrayList<>();
+        List<long[]> deletes = new ArrayList<>();
+        Map<LikeKey, Intent> owners = new HashMap<>();
+
+        for (LikeKey key : pending.keySet()) {
+            Intent intent = pending.get(key);
+            // A concurrent record() replaced the intent; it is picked up on the next flush
+            if (intent == null || !pending.remove(key, intent)) {
+                continue;
+            }
+            inFlight.put(key, intent);
+            if (intent.liked == intent.baseline) {
+                collapsedIntents.increment();
+                continue;
+            }
+            long[] pair = {key.postId, key.userId};
+            if (intent.liked) {
+                inserts.add(pair);
+                owners.put(key, intent);
+            } else {
+                deletes.add(pair);
+            }
+        }
+
+        List<long[]> inserted = new ArrayList<>();
+        List<long[]> deleted = new ArrayList<>();
+        Map<Long, Integer> deltasByPostId = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                inserted.clear();
+                deleted.clear();
+                deltasByPostId.clear();
+                apply(inserts, deletes, inserted, deleted);
+
+                // Counters and notifications follow the rows that actually changed, not the intents
+                inserted.forEach(pair -> deltasByPostId.merge(pair[0], 1, Integer::sum));
+                deleted.forEach(pair -> deltasByPostId.merge(pair[0], -1, Integer::sum));
+                deltasByPostId.values().removeIf(delta -> delta == 0);
+                likeJdbcRepository.adjustLikeCounts(deltasByPostId);
+                inserted.forEach(pair -> {
+                    Intent intent = owners.get(new LikeKey(pair[0], pair[1]));
+                    notificationService.createLikeNotification(intent.postOwnerId, pair[1], pair[0]);
+                });
+            });
+        } catch (RuntimeException e) {
+            logger.error("Like flush failed, retrying {} intents on the next run: {}", inFlight.size(), e.getMessage(), e);
+            inFlight.forEach(this::requeue);
+            inFlight.clear();
+            return;
+        }
+
+        // Index first, so readers always find the pair in either the buffer or the index
+        inserted.forEach(pair -> likeIndex.recordLike(pair[0], pair[1]));
+        deleted.forEach(pair -> likeIndex.recordUnlike(pair[0], pair[1]));
+
+        // The counters now include these changes, or the rows were already in the intended state
+        inFlight.forEach((key, intent) -> unappliedDeltas.merge(key.postId, -intent.delta(), LikeWriteBuffer::sumOrRemove));
+        inFlight.clear();
+
+        deltasByPostId.forEach((postId, delta) -> rankedFeedIndex.recordLikes(postId, delta));
+        if (!deltasByPostId.isEmpty()) {
+            contentVersions.bump(ContentVersions.POSTS);
+        }
+        flushedChanges.increment(inserted.size() + deleted.size());
+    }
+
+    // Writes the rows, skipping pairs that are already in the intended state
+    private void apply(List<long[]> inserts, List<long[]> deletes, List<long[]> inserted, List<long[]> deleted) {
+        List<long[]> all = new ArrayList<>(inserts);
+        all.addAll(deletes);
+        Set<LikeKey> existing = new HashSet<>();
+        likeJdbcRepository.findExisting(all).forEach(pair -> existing.add(new LikeKey(pair[0], pair[1])));
+
+        List<long[]> toInsert = inserts.stream()
+                .filter(pair -> !existing.contains(new LikeKey(pair[0], pair[1])))
+                .collect(Collectors.toList());
+        List<long[]> toDelete = deletes.stream()
+                .filter(pair -> existing.contains(new LikeKey(pair[0], pair[1])))
+                .collect(Collectors.toList());
+
+        boolean[] insertedRows = likeJdbcRepository.insertLikes(toInsert, LocalDateTime.now());
+        for (int i = 0; i < insertedRows.length; i++) {
+            if (insertedRows[i]) {
+                inserted.add(toInsert.get(i));
+            }
+        }
+        boolean[] deletedRows = likeJdbcRepository.deleteLikes(toDelete);
+        for (int i = 0; i < deletedRows.length; i++) {
+            if (deletedRows[i]) {
+                deleted.add(toDelete.get(i));
+            }
+        }
+    }
+
+    /**
+     * Puts a failed intent back. Its baseline is still the committed state, so an intent
+     * recorded on top of it meanwhile is rebased onto that baseline; the buffered delta is
+     * moved from the two intents to the rebased one.
+     */
+    private void requeue(LikeKey key, Intent failed) {
+        int[] deltaChange = {-failed.delta()};
+        pending.compute(key, (k, newer) -> {
+            if (newer == null) {
+                deltaChange[0] += failed.delta();
+                return failed;
+            }
+            deltaChange[0] -= newer.delta();
+            Intent rebased = new Intent(newer.postOwnerId, failed.baseline, newer.liked);
+            deltaChange[0] += rebased.delta();
+            return rebased;
+        });
+        if (deltaChange[0] != 0) {
+            unappliedDeltas.merge(key.postId, deltaChange[0], LikeWriteBuffer::sumOrRemove);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static Integer sumOrRemove(Integer a, Integer b) {
+        int sum = a + b;
+        return sum == 0 ? null : sum;
+    }
+
+    private record LikeKey(long postId, long userId) {
+    }
+
+    // baseline is the committed state when the pair was first buffered; liked is the latest intent
+    private record Intent(Long postOwnerId, boolean baseline, boolean liked) {
+        // What the intent adds to the post's like_count once committed
+        private int delta() {
+            return (liked ? 1 : 0) - (baseline ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.treble.treble.service;
+
+import com.treble.treble.event.NotificationEvent;
+import com.treble.treble.model.Notification;
+import com.treble.treble.model.NotificationReadMarker;
+import com.treble.treble.repository.NotificationJdbcRepository;
+import com.treble.treble.repository.NotificationReadMarkerRepository;
+import com.treble.treble.repository.NotificationRepository;
+import com.treble.treble.util.ActorIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes notifications off the request path.
+ *
+ * {@link NotificationEvent}s are queued once the publishing transaction commits, so a
+ * rolled back like never notifies anyone and the like itself does no notification work.
+ * Worker threads take what has queued up and coalesce it: events of the same type about
+ * the same thing for the same user fold into one row that counts the actors and keeps the
+ * latest few ("Alice and 41 others liked your post"), rendered when it is read. Each batch
+ * is one lookup of open rows plus one batched update and one batched insert. When the
+ * bounded queue is full the publishing thread writes its own notification, which slows
+ * producers down to what the workers sustain.
+ */
+@Component
+public class NotificationPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPipeline.class);
+
+    @Autowired
+    private NotificationJdbcRepository notificationJdbcRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationReadMarkerRepository notificationReadMarkerRepository;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("notificationExecutor")
+    private ThreadPoolTaskExecutor notificationExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.notifications.workers:2}")
+    private int workers;
+
+    @Value("${app.notifications.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.notifications.batch-size:200}")
+    private int batchSize;
+
+    // How long after its latest actor an unread notification still absorbs new ones
+    @Value("${app.notifications.coalesce-window-minutes:1440}")
+    private long coalesceWindowMinutes;
+
+    private BlockingQueue<NotificationEvent> queue;
+    private TransactionTemplate writeTransaction;
+    private volatile boolean running = true;
+
+    private Counter published;
+    private Counter written;
+    private Counter rowsInserted;
+    private Counter failed;
+    private Counter callerRuns;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Caller-runs writes happen in an afterCommit callback and need a transaction of their own
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        published = meterRegistry.counter("notifications.published");
+        written = meterRegistry.counter("notifications.written");
+        rowsInserted = meterRegistry.counter("notifications.rows.inserted");
+        failed = meterRegistry.counter("notifications.failed");
+        callerRuns = meterRegistry.counter("notifications.caller_runs");
+        batchTimer = meterRegistry.timer("notifications.batch");
+        Gauge.builder("notifications.queue.size", queue, Collection::size).register(meterRegistry);
+
+        for (int i = 0; i < workers; i++) {
+            notificationExecutor.execute(this::work);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationEvent(NotificationEvent event) {
+        published.increment();
+        if (!queue.offer(event)) {
+            callerRuns.increment();
+            write(List.of(event));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        List<NotificationEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            write(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+    }
+
+    private void work() {
+        List<NotificationEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                NotificationEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<NotificationEvent> events) {
+        try {
+            batchTimer.record(() -> {
+                Collection<Group> groups = coalesce(events);
+                List<Notification> touched = writeTransaction.execute(status -> writeGroups(groups));
+                written.increment(events.size());
+
+                // Each group touched one row, new or older; only those rows are pushed
+                Map<Long, List<Long>> touchedIds = new HashMap<>();
+                touched.forEach(notification -> touchedIds
+                        .computeIfAbsent(notification.getUserId(), userId -> new ArrayList<>())
+                        .add(notification.getId()));
+                touchedIds.forEach((userId, ids) -> {
+                    contentVersions.bump(ContentVersions.notifications(userId));
+                    notificationService.pushChanges(userId, ids);
+                });
+            });
+        } catch (RuntimeException e) {
+            // Notifications are best effort; losing a batch must not take a worker down
+            failed.increment(events.size());
+            logger.error("Failed to write {} notifications: {}", events.size(), e.getMessage(), e);
+        }
+    }
+
+    // Events about the same thing for the same user become one group, actors in the order they acted
+    private Collection<Group> coalesce(List<NotificationEvent> events) {
+        Map<GroupKey, Group> groups = new LinkedHashMap<>();
+        for (NotificationEvent event : events) {
+            GroupKey key = new GroupKey(event.getUserId(), event.getType(), event.getReferenceId());
+            groups.computeIfAbsent(key, Group::new).add(event);
+        }
+        return groups.values();
+    }
+
+    /**
+     * Folds each group into the recipient's unread notification for the same type and
+     * reference if one was active within the window, otherwise starts a new row. Two
+     * workers racing on one group can at worst leave two rows for it. Returns the rows that
+     * were updated or inserted.
+     */
+    private List<Notification> writeGroups(Collection<Group> groups) {
+        Set<Long> userIds = groups.stream().map(group -> group.key.userId).collect(Collectors.toSet());
+        Set<Long> referenceIds = groups.stream().map(group -> group.key.referenceId).collect(Collectors.toSet());
+        LocalDateTime since = LocalDateTime.now().minusMinutes(coalesceWindowMinutes);
+
+        Map<Long, NotificationReadMarker> markers = notificationReadMarkerRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(NotificationReadMarker::getUserId, marker -> marker));
+
+        Map<GroupKey, Notification> open = new HashMap<>();
+        for (Notification notification : notificationRepository.findOpenGroups(userIds, referenceIds, since)) {
+            // Already seen through "mark all read"; new actors start a fresh notification
+            NotificationReadMarker marker = markers.get(notification.getUserId());
+            if (marker != null && marker.covers(notification.getCreatedAt(), notification.getId())) {
+                continue;
+            }
+            GroupKey key = new GroupKey(notification.getUserId(), notification.getType(), notification.getReferenceId());
+            open.merge(key, notification, (a, b) -> a.getLastActiveAt().isAfter(b.getLastActiveAt()) ? a : b);
+        }
+
+        List<Group> merged = new ArrayList<>();
+        List<Notification> mergedInto = new ArrayList<>();
+        List<Object[]> merges = new ArrayList<>();
+        List<Notification> inserts = new ArrayList<>();
+        for (Group group : groups) {
+            Notification existing = open.get(group.key);
+            if (existing == null) {
+                inserts.add(group.toNotification());
+                continue;
+            }
+            // Actors older than the recent list can be counted twice; the count is for display only
+            List<Long> recent = ActorIds.parse(existing.getRecentActorIds());
+            int added = 0;
+            if (existing.getActorCount() == 0) {
+                // Written before coalescing; the row stands for its sender alone
+                recent.add(existing.getSenderId());
+                added = 1;
+            }
+            for (Long actorId : group.actorIds) {
+                if (ActorIds.pushFront(recent, actorId)) {
+                    added++;
+                }
+            }
+            merged.add(group);
+            mergedInto.add(existing);
+            merges.add(new Object[]{group.latestActorId(), added, ActorIds.format(recent),
+                    Timestamp.valueOf(group.latestAt), existing.getId()});
+        }
+
+        List<Notification> touched = new ArrayList<>();
+        int[] updated = notificationJdbcRepository.mergeActors(merges);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(merged.get(i).toNotification());
+            } else {
+                touched.add(mergedInto.get(i));
+            }
+        }
+        rowsInserted.increment(inserts.size());
+        notificationJdbcRepository.insertNotifications(inserts);
+        touched.addAll(inserts);
+        return touched;
+    }
+
+    private record GroupKey(Long userId, String type, Long referenceId) {
+    }
+
+    private static final class Group {
+        private final GroupKey key;
+        // Oldest first; an actor acting twice moves to the end
+        private final LinkedHashSet<Long> actorIds = new LinkedHashSet<>();
+        private LocalDateTime latestAt;
+
+        private Group(GroupKey key) {
+            this.key = key;
+        }
+
+        private void add(NotificationEvent event) {
+            actorIds.remove(event.getSenderId());
+            actorIds.add(event.getSenderId());
+            if (latestAt == null || event.getCreatedAt().isAfter(latestAt)) {
+                latestAt = event.getCreatedAt();
+            }
+        }
+
+        private Long latestActorId() {
+            return actorIds.getLast();
+        }
+
+        // The message is rendered when the notification is read
+        private Notification toNotification() {
+            Notification notification = new Notification(key.userId, latestActorId(), key.type, key.referenceId, "");
+            notification.setActorCount(actorIds.size());
+            notification.setRecentActorIds(ActorIds.format(new ArrayList<>(actorIds.reversed())));
+            notification.setCreatedAt(latestAt);
+            return notification;
+        }
+    }
+}
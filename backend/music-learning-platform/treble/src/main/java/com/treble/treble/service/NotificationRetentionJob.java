@@ -0,0 +1,196 @@
+package com.treble.treble.service;
+
+import com.treble.treble.model.Notification;
+import com.treble.treble.model.NotificationReadMarker;
+import com.treble.treble.repository.NotificationJdbcRepository;
+import com.treble.treble.repository.NotificationReadMarkerRepository;
+import com.treble.treble.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the notifications table small: read notifications older than
+ * {@code app.notifications.retention.read-age-days} and anything beyond the newest
+ * {@code app.notifications.retention.per-user-cap} of a user are moved to
+ * notification_archive (or just deleted when archiving is off).
+ *
+ * Work is done one chunk per transaction with a pause in between, so the job never holds
+ * many locks at once or saturates the database while users are active. Runs on its own
+ * {@code retentionExecutor} thread, so the pauses never delay other scheduled tasks.
+ * After each chunk commits, the affected users' notification ETags are bumped and users
+ * who lost unread notifications to the cap get their new count pushed.
+ */
+@Component
+public class NotificationRetentionJob {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionJob.class);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationReadMarkerRepository notificationReadMarkerRepository;
+
+    @Autowired
+    private NotificationJdbcRepository notificationJdbcRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.notifications.retention.read-age-days:30}")
+    private int readAgeDays;
+
+    @Value("${app.notifications.retention.per-user-cap:1000}")
+    private int perUserCap;
+
+    @Value("${app.notifications.retention.archive:true}")
+    private boolean archive;
+
+    @Value("${app.notifications.retention.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.notifications.retention.chunk-pause-ms:100}")
+    private long chunkPauseMs;
+
+    private Counter purged;
+    private DistributionSummary purgedPerRun;
+
+    @PostConstruct
+    public void init() {
+        purged = meterRegistry.counter("notifications.retention.purged");
+        purgedPerRun = DistributionSummary.builder("notifications.retention.run.purged")
+                .description("Notifications archived or deleted per retention run")
+                .register(meterRegistry);
+    }
+
+    @Async("retentionExecutor")
+    @Scheduled(cron = "${app.notifications.retention.cron:0 0 4 * * *}")
+    public void run() {
+        long started = System.currentTimeMillis();
+        int aged = purgeReadOlderThanAge();
+        int capped = enforcePerUserCap();
+        purgedPerRun.record(aged + capped);
+
+        logger.info("Notification retention finished in {} ms: {} read notifications older than {} days, " +
+                "{} over the per-user cap of {}", System.currentTimeMillis() - started, aged, readAgeDays, capped, perUserCap);
+    }
+
+    private int purgeReadOlderThanAge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(readAgeDays);
+        long afterId = 0L;
+        int total = 0;
+
+        while (true) {
+            List<Object[]> rows = notificationRepository.findAgedChunk(afterId, cutoff, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            Set<Long> userIds = rows.stream().map(row -> (Long) row[1]).collect(Collectors.toSet());
+            Map<Long, NotificationReadMarker> markers = notificationReadMarkerRepository.findAllById(userIds).stream()
+                    .collect(Collectors.toMap(NotificationReadMarker::getUserId, marker -> marker));
+
+            List<Long> readIds = new ArrayList<>();
+            Set<Long> readUserIds = new HashSet<>();
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                NotificationReadMarker marker = markers.get((Long) row[1]);
+                boolean read = (Boolean) row[2] || (marker != null && marker.covers((LocalDateTime) row[3], id));
+                if (read) {
+                    readIds.add(id);
+                    readUserIds.add((Long) row[1]);
+                }
+            }
+
+            int purgedIds = purge(readIds, cutoff);
+            if (purgedIds > 0) {
+                // Only read rows went, so the lists changed but the unread counts did not
+                readUserIds.forEach(userId -> contentVersions.bump(ContentVersions.notifications(userId)));
+            }
+            total += purgedIds;
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        return total;
+    }
+
+    private int enforcePerUserCap() {
+        int total = 0;
+        for (Long userId : notificationRepository.findUserIdsWithMoreThan(perUserCap)) {
+            // The newest notification past the cap; it and everything older go
+            List<Notification> boundary = notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(
+                    userId, PageRequest.of(perUserCap, 1));
+            if (boundary.isEmpty()) {
+                continue;
+            }
+            Notification first = boundary.get(0);
+
+            while (true) {
+                List<Long> ids = notificationRepository.findIdsUpTo(userId, first.getCreatedAt(), first.getId(),
+                        PageRequest.of(0, chunkSize));
+                int purgedIds = purge(ids, first.getCreatedAt());
+                if (purgedIds > 0) {
+                    // Unread rows may have gone too
+                    contentVersions.bump(ContentVersions.notifications(userId));
+                    notificationService.pushChanges(userId, List.of());
+                }
+                total += purgedIds;
+                // Stop when done, or when the remaining rows coalesced new activity and were skipped
+                if (ids.size() < chunkSize || purgedIds == 0) {
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    private int purge(List<Long> ids, LocalDateTime activeAtLimit) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status ->
+                notificationJdbcRepository.archiveAndDelete(ids, activeAtLimit, now, archive));
+        int count = deleted == null ? 0 : deleted;
+        purged.increment(count);
+        pause();
+        return count;
+    }
+
+    private void pause() {
+        if (chunkPauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkPauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,14 +1,28 @@
 package com.treble.treble.service;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.NotificationResponse;
 import com.treble.treble.dto.UserDTO;
+import com.treble.treble.event.NotificationEvent;
 import com.treble.treble.model.Notification;
-import com.treble.treble.model.User;
+import com.treble.treble.model.NotificationReadMarker;
+import com.treble.treble.repository.NotificationReadMarkerRepository;
 import com.treble.treble.repository.NotificationRepository;
+import com.treble.treble.util.ActorIds;
+import com.treble.treble.util.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,62 +32,143 @@ public class NotificationService {
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private UserService userService;
+    private NotificationReadMarkerRepository notificationReadMarkerRepository;
 
+    @Autowired
+    private RequestBatchLoader requestBatchLoader;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NotificationStreams notificationStreams;
+
+    // Written asynchronously by NotificationPipeline after the caller's transaction commits
     public void createLikeNotification(Long userId, Long senderId, Long postId) {
-        User sender = userService.getUserById(senderId);
-        String message = sender.getFirstName() + " " + sender.getLastName() + " liked your post";
-
-        Notification notification = new Notification(
-                userId,
-                senderId,
-                "LIKE",
-                postId,
-                message
-        );
-
-        notificationRepository.save(notification);
+        eventPublisher.publishEvent(new NotificationEvent(userId, senderId, "LIKE", postId));
     }
 
+    // Only the newest page; /page continues from there
     public List<NotificationResponse> getNotificationsByUserId(Long userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        return getNotificationsPage(userId, null, Cursor.MAX_PAGE_SIZE).getItems();
+    }
 
-        return notifications.stream()
-                .map(notification -> {
-                    User sender = userService.getUserById(notification.getSenderId());
-                    UserDTO senderDTO = convertToDTO(sender);
-                    return new NotificationResponse(notification, senderDTO);
-                })
-                .collect(Collectors.toList());
+    public CursorPage<NotificationResponse> getNotificationsPage(Long userId, String cursor, Integer limit) {
+        int pageSize = Cursor.clampPageSize(limit);
+        Cursor after = Cursor.decode(cursor);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        NotificationReadMarker marker = notificationReadMarkerRepository.findById(userId).orElse(null);
+
+        List<Notification> notifications = after == null
+                ? notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, pageRequest)
+                : notificationRepository.findPageBefore(userId, after.getCreatedAt(), after.getId(), pageRequest);
+
+        return CursorPage.fromRows(notifications, pageSize,
+                notification -> new Cursor(notification.getCreatedAt(), notification.getId()),
+                page -> toResponses(page, marker));
     }
 
     public int getUnreadNotificationCount(Long userId) {
-        return notificationRepository.countByUserIdAndReadFalse(userId);
+        return notificationReadMarkerRepository.findById(userId)
+                .map(marker -> notificationRepository.countUnreadAfter(userId, marker.getLastReadAt(),
+                        marker.getLastReadNotificationId()))
+                .orElseGet(() -> notificationRepository.countByUserIdAndReadFalse(userId));
     }
 
     public void markNotificationAsRead(Long notificationId) {
         notificationRepository.findById(notificationId).ifPresent(notification -> {
             notification.setRead(true);
             notificationRepository.save(notification);
+            contentVersions.bump(ContentVersions.notifications(notification.getUserId()));
+            pushChanges(notification.getUserId(), List.of(notificationId));
         });
     }
 
+    // Moves the user's read watermark up to their latest notification: one row write however many there are
+    @Transactional
     public void markAllNotificationsAsRead(Long userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        notifications.forEach(notification -> notification.setRead(true));
-        notificationRepository.saveAll(notifications);
+        Notification latest = notificationRepository.findFirstByUserIdOrderByCreatedAtDescIdDesc(userId).orElse(null);
+        if (latest == null) {
+            return;
+        }
+        NotificationReadMarker marker = notificationReadMarkerRepository.findById(userId)
+                .orElseGet(() -> new NotificationReadMarker(userId));
+        if (marker.getLastReadAt() != null && marker.covers(latest.getCreatedAt(), latest.getId())) {
+            return;
+        }
+        marker.setLastReadAt(latest.getCreatedAt());
+        marker.setLastReadNotificationId(latest.getId());
+        notificationReadMarkerRepository.save(marker);
+        contentVersions.bump(ContentVersions.notifications(userId));
+        pushChanges(userId, List.of());
+    }
+
+    /**
+     * Pushes the given notifications as they are now, newest first, and the new unread count
+     * to the user's open streams. Call once the change is committed; costs nothing for users
+     * who are not connected to this node.
+     */
+    public void pushChanges(Long userId, Collection<Long> changedIds) {
+        if (!notificationStreams.isSubscribed(userId)) {
+            return;
+        }
+        if (!changedIds.isEmpty()) {
+            NotificationReadMarker marker = notificationReadMarkerRepository.findById(userId).orElse(null);
+            List<Notification> changed = notificationRepository.findAllById(changedIds).stream()
+                    .sorted(Comparator.comparing(Notification::getCreatedAt).thenComparing(Notification::getId).reversed())
+                    .collect(Collectors.toList());
+            for (NotificationResponse notification : toResponses(changed, marker)) {
+                notificationStreams.broadcast(userId, "notification", notification);
+            }
+        }
+        notificationStreams.broadcast(userId, "unread-count", Map.of("count", getUnreadNotificationCount(userId)));
     }
 
-    // Helper method to convert User to UserDTO
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
-        dto.setUserRole(user.getUserRole());
-        dto.setGender(user.getGender());
-        dto.setProfilePictureUrl(user.getProfilePictureUrl());
-        return dto;
+    // Resolves the senders and recent actors of all notifications with one cache lookup
+    private List<NotificationResponse> toResponses(List<Notification> notifications, NotificationReadMarker marker) {
+        Set<Long> userIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            userIds.add(notification.getSenderId());
+            userIds.addAll(ActorIds.parse(notification.getRecentActorIds()));
+        }
+        Map<Long, UserDTO> users = requestBatchLoader.users(userIds);
+
+        return notifications.stream()
+                .map(notification -> {
+                    UserDTO senderDTO = users.get(notification.getSenderId());
+                    boolean read = notification.isRead()
+                            || (marker != null && marker.covers(notification.getCreatedAt(), notification.getId()));
+                    return new NotificationResponse(notification, senderDTO, renderMessage(notification, users), read);
+                })
+                .collect(Collectors.toList());
+    }
+
+    // e.g. "Alice Smith and 41 others liked your post"
+    private String renderMessage(Notification notification, Map<Long, UserDTO> users) {
+        if (notification.getRecentActorIds() == null) {
+            return notification.getMessage();
+        }
+        List<String> names = ActorIds.parse(notification.getRecentActorIds()).stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(user -> user.getFirstName() + " " + user.getLastName())
+                .collect(Collectors.toList());
+        int actorCount = Math.max(notification.getActorCount(), 1);
+        String action = "LIKE".equals(notification.getType()) ? "liked your post" : "interacted with your content";
+
+        if (names.isEmpty()) {
+            return (actorCount == 1 ? "Someone" : actorCount + " people") + " " + action;
+        }
+        if (actorCount == 1) {
+            return names.get(0) + " " + action;
+        }
+        if (actorCount == 2 && names.size() >= 2) {
+            return names.get(0) + " and " + names.get(1) + " " + action;
+        }
+        int others = actorCount - 1;
+        return names.get(0) + " and " + others + (others == 1 ? " other " : " others ") + action;
     }
 }
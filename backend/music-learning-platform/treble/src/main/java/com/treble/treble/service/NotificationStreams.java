@@ -0,0 +1,134 @@
+package com.treble.treble.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event connections of the users connected to this node.
+ *
+ * Subscribers get their unread count on connect; {@link NotificationService} then pushes a
+ * {@code notification} event for every new or updated notification and an
+ * {@code unread-count} event whenever the count may have changed, so they have no reason
+ * to poll. A comment line goes out to every connection on each heartbeat, which keeps
+ * proxies from closing idle streams and finds dead connections. Only changes made on this node are pushed, so with several nodes a
+ * client should still revalidate the unread count now and then.
+ */
+@Component
+public class NotificationStreams {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreams.class);
+
+    // Oldest connections of a user are closed beyond this, e.g. tabs that never unsubscribed
+    private static final int MAX_CONNECTIONS_PER_USER = 5;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.notifications.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final ConcurrentHashMap<Long, CopyOnWriteArrayList<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private Counter eventsSent;
+
+    @PostConstruct
+    public void init() {
+        eventsSent = meterRegistry.counter("notifications.sse.events");
+        Gauge.builder("notifications.sse.connections", connections, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long userId, int unreadCount) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        CopyOnWriteArrayList<SseEmitter> emitters = emittersByUser.compute(userId, (id, current) -> {
+            CopyOnWriteArrayList<SseEmitter> list = current != null ? current : new CopyOnWriteArrayList<>();
+            list.add(emitter);
+            return list;
+        });
+        connections.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+
+        while (emitters.size() > MAX_CONNECTIONS_PER_USER) {
+            SseEmitter oldest = emitters.get(0);
+            remove(userId, oldest);
+            oldest.complete();
+        }
+
+        send(userId, emitter, "unread-count", Map.of("count", unreadCount));
+        return emitter;
+    }
+
+    public boolean isSubscribed(Long userId) {
+        return emittersByUser.containsKey(userId);
+    }
+
+    // Sends an event to every connection the user has open on this node
+    public void broadcast(Long userId, String name, Object data) {
+        Collection<SseEmitter> emitters = emittersByUser.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(userId, emitter, name, data);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emittersByUser.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        emittersByUser.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        emittersByUser.clear();
+        connections.set(0);
+    }
+
+    private void send(Long userId, SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            eventsSent.increment();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the servlet container reports it through onError as well
+            logger.debug("Dropping SSE connection of user {}: {}", userId, e.getMessage());
+            remove(userId, emitter);
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -1,32 +1,46 @@
 package com.treble.treble.service;
 
 import com.treble.treble.dto.CommentResponse;
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.PostRequest;
 import com.treble.treble.dto.PostResponse;
 import com.treble.treble.dto.UserDTO;
 import com.treble.treble.exception.ResourceNotFoundException;
 import com.treble.treble.model.Post;
 import com.treble.treble.model.PostMedia;
-import com.treble.treble.model.User;
 import com.treble.treble.repository.PostRepository;
+import com.treble.treble.util.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class PostService {
+    private static final int EXPORT_CHUNK_SIZE = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     private PostRepository postRepository;
 
     @Autowired
-    private UserService userService;
+    private UserProfileCache userProfileCache;
 
     @Autowired
     private FileStorageService fileStorageService;
@@ -37,12 +51,31 @@ public class PostService {
     @Autowired
     private LikeService likeService;
 
+    @Autowired
+    private FeedAssembler feedAssembler;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private RankedFeedIndex rankedFeedIndex;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private LikeIndex likeIndex;
+
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
     @Value("${server.port:8080}")
     private String serverPort;
 
+    // Only this many comments are embedded in post detail; the rest are paged through the comments API
+    @Value("${app.comments.detail-page-size:20}")
+    private int detailCommentLimit;
+
     public PostResponse createPost(Long userId, String caption, List<MultipartFile> mediaFiles) throws IOException {
         if (mediaFiles == null || mediaFiles.isEmpty() || mediaFiles.size() > 3) {
             throw new IllegalArgumentException("You must provide 1-3 media files");
@@ -88,80 +121,95 @@ public class PostService {
 
         // Save the post
         Post savedPost = postRepository.save(post);
+        timelineService.fanOutPost(savedPost.getId(), userId, savedPost.getCreatedAt());
+        rankedFeedIndex.addPost(savedPost);
+        contentVersions.bump(ContentVersions.POSTS);
 
         // Get user info for response
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(userId);
 
         return new PostResponse(savedPost, userDTO, 0, 0, false);
     }
 
+    // The unpaged endpoints return only the newest page; /page continues from there
     public List<PostResponse> getAllPosts() {
-        List<Post> posts = postRepository.findAllByOrderByCreatedAtDesc();
-        return posts.stream()
-                .map(post -> {
-                    User user = userService.getUserById(post.getUserId());
-                    UserDTO userDTO = convertToDTO(user);
-                    int commentCount = commentService.getCommentCountByPostId(post.getId());
-                    int likeCount = likeService.getLikeCountByPostId(post.getId());
-                    return new PostResponse(post, userDTO, commentCount, likeCount, false);
-                })
+        return getPostsPage(null, null, Cursor.MAX_PAGE_SIZE).getItems();
+    }
+
+    // Reads keyset chunks and assembles each one, so the batched author, like and media lookups still apply
+    @Transactional(readOnly = true)
+    public void exportPosts(Long viewerId, Consumer<PostResponse> sink) {
+        PageRequest chunk = PageRequest.of(0, EXPORT_CHUNK_SIZE);
+        List<Post> posts = postRepository.findAllByOrderByCreatedAtDescIdDesc(chunk);
+        while (!posts.isEmpty()) {
+            Post last = posts.get(posts.size() - 1);
+            writeExportChunk(posts, viewerId, sink);
+            posts = posts.size() < EXPORT_CHUNK_SIZE
+                    ? List.of()
+                    : postRepository.findPageBefore(last.getCreatedAt(), last.getId(), chunk);
+        }
+    }
+
+    public List<PostResponse> getTopPosts(String window, Long viewerId, Integer limit) {
+        Duration duration = rankedFeedIndex.parseWindow(window);
+        List<Long> postIds = rankedFeedIndex.top(duration, Cursor.clampPageSize(limit));
+
+        Map<Long, Post> postsById = postRepository.findAllById(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> posts = postIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return feedAssembler.assemble(posts, viewerId);
     }
 
     public List<PostResponse> getAllPostsForUser(Long viewerId) {
-        List<Post> posts = postRepository.findAllByOrderByCreatedAtDesc();
-        return posts.stream()
-                .map(post -> {
-                    User user = userService.getUserById(post.getUserId());
-                    UserDTO userDTO = convertToDTO(user);
-                    int commentCount = commentService.getCommentCountByPostId(post.getId());
-                    int likeCount = likeService.getLikeCountByPostId(post.getId());
-                    boolean hasLiked = likeService.hasUserLikedPost(post.getId(), viewerId);
-                    return new PostResponse(post, userDTO, commentCount, likeCount, hasLiked);
-                })
-                .collect(Collectors.toList());
+        return getPostsPage(viewerId, null, Cursor.MAX_PAGE_SIZE).getItems();
+    }
+
+    public CursorPage<PostResponse> getPostsPage(Long viewerId, String cursor, Integer limit) {
+        int pageSize = Cursor.clampPageSize(limit);
+        Cursor after = Cursor.decode(cursor);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        List<Post> posts = after == null
+                ? postRepository.findAllByOrderByCreatedAtDescIdDesc(pageRequest)
+                : postRepository.findPageBefore(after.getCreatedAt(), after.getId(), pageRequest);
+
+        return CursorPage.fromRows(posts, pageSize,
+                post -> new Cursor(post.getCreatedAt(), post.getId()),
+                page -> feedAssembler.assemble(page, viewerId));
+    }
+
+    public CursorPage<PostResponse> getTimeline(Long userId, String cursor, Integer limit) {
+        userProfileCache.get(userId);
+        return timelineService.getTimeline(userId, cursor, limit);
     }
 
     public List<PostResponse> getPostsByUser(Long userId) {
-        List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
-
-        return posts.stream()
-                .map(post -> {
-                    int commentCount = commentService.getCommentCountByPostId(post.getId());
-                    int likeCount = likeService.getLikeCountByPostId(post.getId());
-                    return new PostResponse(post, userDTO, commentCount, likeCount, false);
-                })
-                .collect(Collectors.toList());
+        // Resolve the user first so an unknown id still fails even when there are no posts
+        userProfileCache.get(userId);
+        List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId,
+                PageRequest.of(0, Cursor.MAX_PAGE_SIZE));
+        return feedAssembler.assemble(posts, null);
     }
 
     public List<PostResponse> getPostsByUserForViewer(Long userId, Long viewerId) {
-        List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
-
-        return posts.stream()
-                .map(post -> {
-                    int commentCount = commentService.getCommentCountByPostId(post.getId());
-                    int likeCount = likeService.getLikeCountByPostId(post.getId());
-                    boolean hasLiked = likeService.hasUserLikedPost(post.getId(), viewerId);
-                    return new PostResponse(post, userDTO, commentCount, likeCount, hasLiked);
-                })
-                .collect(Collectors.toList());
+        userProfileCache.get(userId);
+        List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId,
+                PageRequest.of(0, Cursor.MAX_PAGE_SIZE));
+        return feedAssembler.assemble(posts, viewerId);
     }
 
     public PostResponse getPostById(Long id) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + id));
 
-        User user = userService.getUserById(post.getUserId());
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(post.getUserId());
 
-        int commentCount = commentService.getCommentCountByPostId(post.getId());
-        List<CommentResponse> comments = commentService.getCommentsByPostId(post.getId());
-        int likeCount = likeService.getLikeCountByPostId(post.getId());
+        int commentCount = commentService.getCommentCount(post);
+        CursorPage<CommentResponse> comments = commentService.getCommentsPage(post.getId(), null, detailCommentLimit);
+        int likeCount = likeService.getLikeCount(post);
 
         return new PostResponse(post, userDTO, commentCount, comments, likeCount, false);
     }
@@ -170,12 +218,11 @@ public class PostService {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + id));
 
-        User user = userService.getUserById(post.getUserId());
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(post.getUserId());
 
-        int commentCount = commentService.getCommentCountByPostId(post.getId());
-        List<CommentResponse> comments = commentService.getCommentsByPostId(post.getId());
-        int likeCount = likeService.getLikeCountByPostId(post.getId());
+        int commentCount = commentService.getCommentCount(post);
+        CursorPage<CommentResponse> comments = commentService.getCommentsPage(post.getId(), null, detailCommentLimit);
+        int likeCount = likeService.getLikeCount(post);
         boolean hasLiked = likeService.hasUserLikedPost(post.getId(), userId);
 
         return new PostResponse(post, userDTO, commentCount, comments, likeCount, hasLiked);
@@ -241,14 +288,14 @@ public class PostService {
 
         // Save the updated post
         Post updatedPost = postRepository.save(existingPost);
+        contentVersions.bump(ContentVersions.POSTS);
 
         // Get user info for response
-        User user = userService.getUserById(updatedPost.getUserId());
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(updatedPost.getUserId());
 
-        int commentCount = commentService.getCommentCountByPostId(updatedPost.getId());
-        List<CommentResponse> comments = commentService.getCommentsByPostId(updatedPost.getId());
-        int likeCount = likeService.getLikeCountByPostId(updatedPost.getId());
+        int commentCount = commentService.getCommentCount(updatedPost);
+        CursorPage<CommentResponse> comments = commentService.getCommentsPage(updatedPost.getId(), null, detailCommentLimit);
+        int likeCount = likeService.getLikeCount(updatedPost);
 
         return new PostResponse(updatedPost, userDTO, commentCount, comments, likeCount, false);
     }
@@ -265,18 +312,15 @@ public class PostService {
 
         // Delete the post
         postRepository.deleteById(id);
+        timelineService.removePost(id);
+        rankedFeedIndex.removePost(id);
+        likeIndex.removePost(id);
+        contentVersions.bump(ContentVersions.POSTS);
     }
 
-    // Helper method to convert User to UserDTO
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
-        dto.setUserRole(user.getUserRole());
-        dto.setGender(user.getGender());
-        dto.setProfilePictureUrl(user.getProfilePictureUrl());
-        return dto;
+    private void writeExportChunk(List<Post> chunk, Long viewerId, Consumer<PostResponse> sink) {
+        feedAssembler.assemble(chunk, viewerId).forEach(sink);
+        // Written posts would otherwise stay managed until the export finishes
+        entityManager.clear();
     }
 }
@@ -1,5 +1,6 @@
 package com.treble.treble.service;
 
+import com.treble.treble.dto.CursorPage;
 import com.treble.treble.dto.ProgressUpdateRequest;
 import com.treble.treble.dto.ProgressUpdateResponse;
 import com.treble.treble.dto.UserDTO;
@@ -7,13 +8,16 @@ import com.treble.treble.exception.ResourceNotFoundException;
 import com.treble.treble.model.LearningPlan;
 import com.treble.treble.model.ProgressUpdate;
 import com.treble.treble.model.ProgressUpdateMedia;
-import com.treble.treble.model.User;
 import com.treble.treble.repository.LearningPlanRepository;
 import com.treble.treble.repository.ProgressUpdateMediaRepository;
 import com.treble.treble.repository.ProgressUpdateRepository;
+import com.treble.treble.util.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,11 +25,17 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class ProgressUpdateService {
     private static final Logger logger = LoggerFactory.getLogger(ProgressUpdateService.class);
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     private ProgressUpdateRepository progressUpdateRepository;
@@ -37,7 +47,10 @@ public class ProgressUpdateService {
     private LearningPlanRepository learningPlanRepository;
 
     @Autowired
-    private UserService userService;
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private RequestBatchLoader requestBatchLoader;
 
     @Autowired
     private FileStorageService fileStorageService;
@@ -79,8 +92,7 @@ public class ProgressUpdateService {
         }
 
         // Get user info for response
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(userId);
 
         return new ProgressUpdateResponse(
                 savedProgressUpdate,
@@ -93,27 +105,55 @@ public class ProgressUpdateService {
         );
     }
 
+    // Only the newest page; /page continues from there
     public List<ProgressUpdateResponse> getAllProgressUpdates(Long currentUserId) {
-        List<ProgressUpdate> progressUpdates = progressUpdateRepository.findAllByOrderByCreatedAtDesc();
-        return progressUpdates.stream()
-                .map(progressUpdate -> convertToResponse(progressUpdate, currentUserId))
-                .collect(Collectors.toList());
+        return getProgressUpdatesPage(currentUserId, null, Cursor.MAX_PAGE_SIZE).getItems();
+    }
+
+    @Transactional(readOnly = true)
+    public void exportProgressUpdates(Long currentUserId, Consumer<ProgressUpdateResponse> sink) {
+        logger.info("Exporting progress updates for user ID: {}", currentUserId);
+        PageRequest chunk = PageRequest.of(0, EXPORT_CHUNK_SIZE);
+        List<ProgressUpdate> progressUpdates = progressUpdateRepository.findAllByOrderByCreatedAtDescIdDesc(chunk);
+        while (!progressUpdates.isEmpty()) {
+            ProgressUpdate last = progressUpdates.get(progressUpdates.size() - 1);
+            // Export threads have no request, so nothing stays memoized past the chunk
+            toResponses(progressUpdates, currentUserId).forEach(sink);
+            // Drops the chunk and the plans and media loaded while converting it
+            entityManager.clear();
+            progressUpdates = progressUpdates.size() < EXPORT_CHUNK_SIZE
+                    ? List.of()
+                    : progressUpdateRepository.findPageBefore(last.getCreatedAt(), last.getId(), chunk);
+        }
+    }
+
+    public CursorPage<ProgressUpdateResponse> getProgressUpdatesPage(Long currentUserId, String cursor, Integer limit) {
+        int pageSize = Cursor.clampPageSize(limit);
+        Cursor after = Cursor.decode(cursor);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        List<ProgressUpdate> progressUpdates = after == null
+                ? progressUpdateRepository.findAllByOrderByCreatedAtDescIdDesc(pageRequest)
+                : progressUpdateRepository.findPageBefore(after.getCreatedAt(), after.getId(), pageRequest);
+
+        return CursorPage.fromRows(progressUpdates, pageSize,
+                progressUpdate -> new Cursor(progressUpdate.getCreatedAt(), progressUpdate.getId()),
+                page -> toResponses(page, currentUserId));
     }
 
     public List<ProgressUpdateResponse> getProgressUpdatesByUserId(Long userId, Long currentUserId) {
         logger.info("Getting progress updates for user ID: {}", userId);
-        List<ProgressUpdate> progressUpdates = progressUpdateRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        List<ProgressUpdate> progressUpdates = progressUpdateRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId,
+                PageRequest.of(0, Cursor.MAX_PAGE_SIZE));
         logger.info("Found {} progress updates for user ID: {}", progressUpdates.size(), userId);
 
-        return progressUpdates.stream()
-                .map(progressUpdate -> convertToResponse(progressUpdate, currentUserId))
-                .collect(Collectors.toList());
+        return toResponses(progressUpdates, currentUserId);
     }
 
     public ProgressUpdateResponse getProgressUpdateById(Long id, Long currentUserId) {
         ProgressUpdate progressUpdate = progressUpdateRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Progress update not found with id: " + id));
-        return convertToResponse(progressUpdate, currentUserId);
+        return toResponses(List.of(progressUpdate), currentUserId).get(0);
     }
 
     @Transactional
@@ -177,8 +217,7 @@ public class ProgressUpdateService {
         }
 
         // Get user info for response
-        User user = userService.getUserById(userId);
-        UserDTO userDTO = convertToDTO(user);
+        UserDTO userDTO = userProfileCache.get(userId);
 
         // Get learning plan title
         LearningPlan learningPlan = learningPlanRepository.findById(progressUpdate.getLearningPlanId())
@@ -218,45 +257,44 @@ public class ProgressUpdateService {
         progressUpdateRepository.deleteById(id);
     }
 
-    // Helper method to convert User to UserDTO
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
-        dto.setUserRole(user.getUserRole());
-        dto.setGender(user.getGender());
-        dto.setProfilePictureUrl(user.getProfilePictureUrl());
-        return dto;
-    }
+    // Resolves authors, plans and media of all rows with one lookup per type
+    private List<ProgressUpdateResponse> toResponses(List<ProgressUpdate> progressUpdates, Long currentUserId) {
+        Map<Long, UserDTO> users = requestBatchLoader.users(
+                progressUpdates.stream().map(ProgressUpdate::getUserId).collect(Collectors.toSet()));
+        Map<Long, LearningPlan> learningPlans = requestBatchLoader.learningPlans(
+                progressUpdates.stream().map(ProgressUpdate::getLearningPlanId).collect(Collectors.toSet()));
+        Map<Long, List<ProgressUpdateMedia>> media = requestBatchLoader.progressUpdateMedia(
+                progressUpdates.stream().map(ProgressUpdate::getId).collect(Collectors.toList()));
 
-    // Helper method to convert ProgressUpdate to ProgressUpdateResponse
-    private ProgressUpdateResponse convertToResponse(ProgressUpdate progressUpdate, Long currentUserId) {
-        User user = userService.getUserById(progressUpdate.getUserId());
-        UserDTO userDTO = convertToDTO(user);
-
-        LearningPlan learningPlan = learningPlanRepository.findById(progressUpdate.getLearningPlanId())
-                .orElseThrow(() -> new ResourceNotFoundException("Learning plan not found with id: " + progressUpdate.getLearningPlanId()));
-
-        List<ProgressUpdateMedia> media = progressUpdateMediaRepository.findByProgressUpdateId(progressUpdate.getId());
-        List<String> mediaUrls = media.stream()
-                .map(ProgressUpdateMedia::getMediaUrl)
+        return progressUpdates.stream()
+                .map(progressUpdate -> {
+                    UserDTO userDTO = users.get(progressUpdate.getUserId());
+                    if (userDTO == null) {
+                        throw new ResourceNotFoundException("User not found with id: " + progressUpdate.getUserId());
+                    }
+                    LearningPlan learningPlan = learningPlans.get(progressUpdate.getLearningPlanId());
+                    if (learningPlan == null) {
+                        throw new ResourceNotFoundException("Learning plan not found with id: " + progressUpdate.getLearningPlanId());
+                    }
+                    List<String> mediaUrls = media.getOrDefault(progressUpdate.getId(), List.of()).stream()
+                            .map(ProgressUpdateMedia::getMediaUrl)
+                            .collect(Collectors.toList());
+
+                    // In a real implementation, you would calculate these values
+                    int likeCount = 0; // Would need to be calculated
+                    int commentCount = 0; // Would need to be calculated
+                    boolean userHasLiked = false; // Would need to be calculated
+
+                    return new ProgressUpdateResponse(
+                            progressUpdate,
+                            userDTO,
+                            learningPlan.getTitle(),
+                            mediaUrls,
+                            likeCount,
+                            commentCount,
+                            userHasLiked
+                    );
+                })
                 .collect(Collectors.toList());
-
-        // In a real implementation, you would calculate these values
-        int likeCount = 0; // Would need to be calculated
-        int commentCount = 0; // Would need to be calculated
-        boolean userHasLiked = false; // Would need to be calculated
-
-        return new ProgressUpdateResponse(
-                progressUpdate,
-                userDTO,
-                learningPlan.getTitle(),
-                mediaUrls,
-                likeCount,
-                commentCount,
-                userHasLiked
-        );
     }
 }
@@ -0,0 +1,172 @@
+package com.treble.treble.service;
+
+import com.treble.treble.model.Post;
+import com.treble.treble.repository.PostRepository;
+import com.treble.treble.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of recent posts by engagement with time decay.
+ *
+ * A post's weight is {@code (1 + likes + 2 * comments) * e^(-(now - createdAt) / tau)}.
+ * Ranking by its logarithm, {@code ln(1 + likes + 2 * comments) + createdAt / tau}, gives
+ * the same order at any instant without depending on "now", so an entry only moves in
+ * the skip list when its own likes or comments change.
+ */
+@Component
+public class RankedFeedIndex {
+    private static final Logger logger = LoggerFactory.getLogger(RankedFeedIndex.class);
+
+    private static final Comparator<Entry> BY_SCORE_DESC = Comparator
+            .comparingDouble((Entry entry) -> entry.score)
+            .thenComparingLong(entry -> entry.postId)
+            .reversed();
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${app.ranking.half-life-hours:12}")
+    private double halfLifeHours;
+
+    // Posts older than this drop out of the index, which also caps the window clients can ask for
+    @Value("${app.ranking.retention-days:7}")
+    private int retentionDays;
+
+    private final ConcurrentSkipListSet<Entry> ranked = new ConcurrentSkipListSet<>(BY_SCORE_DESC);
+    private final ConcurrentHashMap<Long, Entry> entriesByPostId = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<Post> posts = postRepository.findByCreatedAtAfter(cutoff);
+        for (Post post : posts) {
+            put(new Entry(post.getId(), toEpochSeconds(post.getCreatedAt()), post.getLikeCount(), post.getCommentCount()));
+        }
+        logger.info("Ranked feed index loaded with {} posts from the last {} days", posts.size(), retentionDays);
+    }
+
+    public void addPost(Post post) {
+        AfterCommit.run(() -> put(new Entry(post.getId(), toEpochSeconds(post.getCreatedAt()), 0, 0)));
+    }
+
+    public void removePost(Long postId) {
+        AfterCommit.run(() -> {
+            Entry removed = entriesByPostId.remove(postId);
+            if (removed != null) {
+                ranked.remove(removed);
+            }
+        });
+    }
+
+    public void recordLikes(Long postId, int delta) {
+        AfterCommit.run(() -> adjust(postId, delta, 0));
+    }
+
+    public void recordComments(Long postId, int delta) {
+        AfterCommit.run(() -> adjust(postId, 0, delta));
+    }
+
+    // Highest ranked post ids created within the window, best first
+    public List<Long> top(Duration window, int limit) {
+        long since = toEpochSeconds(LocalDateTime.now().minus(window));
+        List<Long> postIds = new ArrayList<>(limit);
+        for (Entry entry : ranked) {
+            if (postIds.size() >= limit) {
+                break;
+            }
+            if (entry.createdAtSeconds >= since) {
+                postIds.add(entry.postId);
+            }
+        }
+        return postIds;
+    }
+
+    public Duration parseWindow(String window) {
+        Duration duration;
+        try {
+            long amount = Long.parseLong(window.substring(0, window.length() - 1));
+            char unit = Character.toLowerCase(window.charAt(window.length() - 1));
+            switch (unit) {
+                case 'm' -> duration = Duration.ofMinutes(amount);
+                case 'h' -> duration = Duration.ofHours(amount);
+                case 'd' -> duration = Duration.ofDays(amount);
+                default -> throw new IllegalArgumentException("Unsupported window unit: " + window);
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(Duration.ofDays(retentionDays)) > 0) {
+            throw new IllegalArgumentException("Window must be between 1m and " + retentionDays + "d");
+        }
+        return duration;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ranking.evict-interval-ms:3600000}")
+    public void evictExpired() {
+        long cutoff = toEpochSeconds(LocalDateTime.now().minusDays(retentionDays));
+        entriesByPostId.values().removeIf(entry -> {
+            if (entry.createdAtSeconds < cutoff) {
+                ranked.remove(entry);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entriesByPostId.put(entry.postId, entry);
+        if (previous != null) {
+            ranked.remove(previous);
+        }
+        ranked.add(entry);
+    }
+
+    private void adjust(Long postId, int likeDelta, int commentDelta) {
+        // compute serializes updates to the same post so the skip list never holds two entries for it
+        entriesByPostId.computeIfPresent(postId, (id, current) -> {
+            Entry updated = new Entry(id, current.createdAtSeconds,
+                    Math.max(0, current.likes + likeDelta), Math.max(0, current.comments + commentDelta));
+            ranked.remove(current);
+            ranked.add(updated);
+            return updated;
+        });
+    }
+
+    private long toEpochSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private class Entry {
+        private final long postId;
+        private final long createdAtSeconds;
+        private final int likes;
+        private final int comments;
+        private final double score;
+
+        private Entry(long postId, long createdAtSeconds, int likes, int comments) {
+            this.postId = postId;
+            this.createdAtSeconds = createdAtSeconds;
+            this.likes = likes;
+            this.comments = comments;
+            double tauSeconds = halfLifeHours * 3600 / Math.log(2);
+            this.score = Math.log1p(likes + 2.0 * comments) + createdAtSeconds / tauSeconds;
+        }
+    }
+}
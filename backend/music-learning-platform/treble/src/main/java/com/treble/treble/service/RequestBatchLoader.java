@@ -0,0 +1,113 @@
+package com.treble.treble.service;
+
+import com.treble.treble.dto.UserDTO;
+import com.treble.treble.model.LearningPlan;
+import com.treble.treble.model.ProgressUpdateMedia;
+import com.treble.treble.repository.LearningPlanRepository;
+import com.treble.treble.repository.ProgressUpdateMediaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the users, learning plans and media a list response refers to, one query per
+ * type for all the rows instead of one per row.
+ *
+ * Callers hand over every id the page needs; only ids not seen before in the current
+ * request are loaded, so the number of queries behind a response does not grow with its
+ * rows. Results, including ids that were not found, are memoized in the request's
+ * attributes. Outside a web request (scheduled jobs, streamed exports) nothing is
+ * memoized and each call loads what it is given.
+ */
+@Component
+public class RequestBatchLoader {
+    private static final String ATTRIBUTE = RequestBatchLoader.class.getName() + ".memo";
+
+    // Remembers an id that was looked up and does not exist
+    private static final Object MISSING = new Object();
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private LearningPlanRepository learningPlanRepository;
+
+    @Autowired
+    private ProgressUpdateMediaRepository progressUpdateMediaRepository;
+
+    // Users that do not exist are left out of the map
+    public Map<Long, UserDTO> users(Collection<Long> userIds) {
+        return load("users", userIds, userProfileCache::getAll);
+    }
+
+    public Map<Long, LearningPlan> learningPlans(Collection<Long> learningPlanIds) {
+        return load("learningPlans", learningPlanIds, ids -> learningPlanRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(LearningPlan::getId, learningPlan -> learningPlan)));
+    }
+
+    // Every progress update id is in the map, with an empty list when it has no media
+    public Map<Long, List<ProgressUpdateMedia>> progressUpdateMedia(Collection<Long> progressUpdateIds) {
+        return load("progressUpdateMedia", progressUpdateIds, ids -> {
+            Map<Long, List<ProgressUpdateMedia>> media = new HashMap<>();
+            ids.forEach(id -> media.put(id, new ArrayList<>()));
+            for (ProgressUpdateMedia item : progressUpdateMediaRepository.findByProgressUpdateIdInOrderByIdAsc(ids)) {
+                media.get(item.getProgressUpdateId()).add(item);
+            }
+            return media;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> Map<Long, V> load(String type, Collection<Long> ids, Function<Set<Long>, Map<Long, V>> loader) {
+        Map<Long, Object> memo = memo(type);
+
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null && !memo.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            Map<Long, V> loaded = loader.apply(misses);
+            for (Long id : misses) {
+                V value = loaded.get(id);
+                memo.put(id, value != null ? value : MISSING);
+            }
+        }
+
+        Map<Long, V> result = new HashMap<>();
+        for (Long id : ids) {
+            Object value = id == null ? null : memo.get(id);
+            if (value != null && value != MISSING) {
+                result.put(id, (V) value);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Object> memo(String type) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new HashMap<>();
+        }
+        Map<String, Map<Long, Object>> memos =
+                (Map<String, Map<Long, Object>>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memos == null) {
+            memos = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, memos, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memos.computeIfAbsent(type, key -> new HashMap<>());
+    }
+}
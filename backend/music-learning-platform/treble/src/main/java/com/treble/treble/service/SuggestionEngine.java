@@ -0,0 +1,401 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.FollowJdbcRepository;
+import com.treble.treble.util.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * "Who to follow": people followed by the people a user follows, ranked by how many of
+ * them do (the mutual count), answered from memory without SQL.
+ *
+ * The follow graph is held as a CSR snapshot of primitive arrays, rebuilt from
+ * user_followers every {@code app.suggestions.rebuild-interval-ms}. Follows and unfollows
+ * since the last rebuild are kept in a small overlay keyed by follower and applied on top
+ * of the snapshot at query time, so suggestions react immediately. A query gathers the
+ * two-hop neighbours with a fork/join pass, sorts them with {@link Arrays#parallelSort}
+ * and counts runs; its cost depends on the user's neighbourhood, not on the graph size.
+ */
+@Component
+public class SuggestionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionEngine.class);
+
+    // Most followed accounts, suggested to users without any friends-of-friends
+    private static final int POPULAR_SIZE = 100;
+
+    // Followees per fork/join leaf task
+    private static final int GATHER_THRESHOLD = 64;
+
+    @Autowired
+    private FollowJdbcRepository followJdbcRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Caps how much a single followee with a huge following list contributes to one query
+    @Value("${app.suggestions.max-per-followee:1000}")
+    private int maxPerFollowee;
+
+    private volatile Graph graph;
+
+    // follower id -> followed id -> latest change since the snapshot
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, EdgeChange>> changes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Timer queryTimer;
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    public void init() {
+        queryTimer = meterRegistry.timer("suggestions.query");
+        rebuildTimer = meterRegistry.timer("suggestions.rebuild");
+        Gauge.builder("suggestions.graph.edges", this, engine -> {
+            Graph current = engine.graph;
+            return current == null ? 0 : current.targets.length;
+        }).register(meterRegistry);
+        Gauge.builder("suggestions.overlay.followers", changes, Map::size).register(meterRegistry);
+    }
+
+    // Applied once the caller's transaction commits, so a rolled back follow is never suggested around
+    public void recordFollow(Long followerId, Long userId, boolean follows) {
+        AfterCommit.run(() -> changes.compute(followerId, (id, followed) -> {
+            ConcurrentHashMap<Long, EdgeChange> map = followed != null ? followed : new ConcurrentHashMap<>();
+            map.put(userId, new EdgeChange(follows, sequence.incrementAndGet()));
+            return map;
+        }));
+    }
+
+    // On its own thread, so streaming and sorting the graph never delays the scheduler's flushes
+    @Async("suggestionExecutor")
+    @Scheduled(fixedDelayString = "${app.suggestions.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.suggestions.initial-delay-ms:0}")
+    public synchronized void rebuild() {
+        // Changes up to here committed before the scan starts, so the scan sees them
+        long rebuiltUpTo = sequence.get();
+        long started = System.currentTimeMillis();
+
+        Graph rebuilt;
+        try {
+            rebuilt = rebuildTimer.record(this::loadGraph);
+        } catch (RuntimeException e) {
+            // Keeps answering from the previous snapshot and overlay
+            logger.error("Suggestion graph rebuild failed: {}", e.getMessage(), e);
+            return;
+        }
+        graph = rebuilt;
+
+        for (Long followerId : changes.keySet()) {
+            changes.computeIfPresent(followerId, (id, followed) -> {
+                followed.values().removeIf(change -> change.sequence <= rebuiltUpTo);
+                return followed.isEmpty() ? null : followed;
+            });
+        }
+
+        logger.info("Suggestion graph rebuilt in {} ms: {} users, {} edges",
+                System.currentTimeMillis() - started, rebuilt.userIds.length, rebuilt.targets.length);
+    }
+
+    /**
+     * Up to {@code limit} suggestions for the user, best first. Users without any
+     * friends-of-friends get the most followed accounts; nothing is suggested before the
+     * first snapshot is built.
+     */
+    public List<Suggestion> suggest(long userId, int limit) {
+        Graph current = graph;
+        if (current == null) {
+            return List.of();
+        }
+        return queryTimer.record(() -> rank(current, userId, limit));
+    }
+
+    private List<Suggestion> rank(Graph current, long userId, int limit) {
+        Set<Long> followed = followedBy(current, userId);
+
+        // Followees that are in the snapshot contribute their CSR rows to the gather
+        int[] followees = followed.stream()
+                .mapToInt(current::indexOf)
+                .filter(index -> index >= 0)
+                .toArray();
+        int[] starts = new int[followees.length + 1];
+        for (int i = 0; i < followees.length; i++) {
+            starts[i + 1] = starts[i] + Math.min(current.degree(followees[i]), maxPerFollowee);
+        }
+
+        int[] reached = new int[starts[followees.length]];
+        ForkJoinPool.commonPool().invoke(new Gather(current, followees, starts, reached, 0, followees.length));
+        Arrays.parallelSort(reached);
+
+        // Overlay edges of the followees, applied as corrections to the snapshot counts
+        Map<Long, Integer> corrections = new HashMap<>();
+        for (Long followeeId : followed) {
+            Map<Long, EdgeChange> followeeChanges = changes.get(followeeId);
+            if (followeeChanges == null) {
+                continue;
+            }
+            int followee = current.indexOf(followeeId);
+            followeeChanges.forEach((candidateId, change) -> {
+                boolean inSnapshot = followee >= 0 && current.hasEdge(followee, current.indexOf(candidateId));
+                if (change.follows && !inSnapshot) {
+                    corrections.merge(candidateId, 1, Integer::sum);
+                } else if (!change.follows && inSnapshot) {
+                    corrections.merge(candidateId, -1, Integer::sum);
+                }
+            });
+        }
+
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(Suggestion.RANKING.reversed());
+        int run = 0;
+        while (run < reached.length) {
+            int end = run;
+            while (end < reached.length && reached[end] == reached[run]) {
+                end++;
+            }
+            long candidateId = current.userIds[reached[run]];
+            Integer correction = corrections.remove(candidateId);
+            int mutualCount = end - run + (correction == null ? 0 : correction);
+            if (mutualCount > 0) {
+                offer(best, limit, userId, followed, candidateId, mutualCount, current.inDegree[reached[run]]);
+            }
+            run = end;
+        }
+        corrections.forEach((candidateId, mutualCount) -> {
+            int index = current.indexOf(candidateId);
+            if (mutualCount > 0) {
+                offer(best, limit, userId, followed, candidateId, mutualCount, index >= 0 ? current.inDegree[index] : 0);
+            }
+        });
+
+        if (best.isEmpty()) {
+            for (long popularId : current.popularIds) {
+                int index = current.indexOf(popularId);
+                offer(best, limit, userId, followed, popularId, 0, current.inDegree[index]);
+            }
+        }
+
+        List<Suggestion> ranked = new ArrayList<>(best);
+        ranked.sort(Suggestion.RANKING);
+        return ranked;
+    }
+
+    private void offer(PriorityQueue<Suggestion> best, int limit, long userId, Set<Long> followed,
+                       long candidateId, int mutualCount, int followerCount) {
+        if (candidateId == userId || followed.contains(candidateId)) {
+            return;
+        }
+        best.offer(new Suggestion(candidateId, mutualCount, followerCount));
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    // The snapshot's following row of the user with the overlay applied
+    private Set<Long> followedBy(Graph current, long userId) {
+        Set<Long> followed = new HashSet<>();
+        int index = current.indexOf(userId);
+        if (index >= 0) {
+            for (int i = current.offsets[index]; i < current.offsets[index + 1]; i++) {
+                followed.add(current.userIds[current.targets[i]]);
+            }
+        }
+        Map<Long, EdgeChange> userChanges = changes.get(userId);
+        if (userChanges != null) {
+            userChanges.forEach((followedId, change) -> {
+                if (change.follows) {
+                    followed.add(followedId);
+                } else {
+                    followed.remove(followedId);
+                }
+            });
+        }
+        return followed;
+    }
+
+    private Graph loadGraph() {
+        LongList followers = new LongList();
+        LongList followees = new LongList();
+        followJdbcRepository.forEachEdge((followerId, userId) -> {
+            followers.add(followerId);
+            followees.add(userId);
+        });
+        return Graph.build(followers.values, followees.values, followers.size);
+    }
+
+    public static final class Suggestion {
+        // Most mutual follows first, then most followed, then oldest account
+        private static final Comparator<Suggestion> RANKING = Comparator
+                .comparingInt((Suggestion suggestion) -> suggestion.mutualCount).reversed()
+                .thenComparing(Comparator.comparingInt((Suggestion suggestion) -> suggestion.followerCount).reversed())
+                .thenComparingLong(suggestion -> suggestion.userId);
+
+        private final long userId;
+        private final int mutualCount;
+        private final int followerCount;
+
+        private Suggestion(long userId, int mutualCount, int followerCount) {
+            this.userId = userId;
+            this.mutualCount = mutualCount;
+            this.followerCount = followerCount;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public int getMutualCount() {
+            return mutualCount;
+        }
+    }
+
+    private record EdgeChange(boolean follows, long sequence) {
+    }
+
+    /**
+     * Immutable follow graph in compressed sparse row form. Users are numbered by their
+     * position in the sorted {@code userIds}; the users followed by user {@code i} are
+     * {@code targets[offsets[i]..offsets[i + 1])}, sorted so edges can be binary searched.
+     */
+    private static final class Graph {
+        private final long[] userIds;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] inDegree;
+        private final long[] popularIds;
+
+        private Graph(long[] userIds, int[] offsets, int[] targets, int[] inDegree, long[] popularIds) {
+            this.userIds = userIds;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.inDegree = inDegree;
+            this.popularIds = popularIds;
+        }
+
+        private static Graph build(long[] followers, long[] followees, int edgeCount) {
+            long[] ids = new long[edgeCount * 2];
+            System.arraycopy(followers, 0, ids, 0, edgeCount);
+            System.arraycopy(followees, 0, ids, edgeCount, edgeCount);
+            Arrays.parallelSort(ids);
+            int userCount = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[userCount++] = ids[i];
+                }
+            }
+            long[] userIds = Arrays.copyOf(ids, userCount);
+
+            int[] from = new int[edgeCount];
+            int[] to = new int[edgeCount];
+            IntStream.range(0, edgeCount).parallel().forEach(i -> {
+                from[i] = Arrays.binarySearch(userIds, followers[i]);
+                to[i] = Arrays.binarySearch(userIds, followees[i]);
+            });
+
+            int[] offsets = new int[userCount + 1];
+            int[] inDegree = new int[userCount];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[from[i] + 1]++;
+                inDegree[to[i]]++;
+            }
+            for (int i = 0; i < userCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] targets = new int[edgeCount];
+            int[] next = Arrays.copyOf(offsets, userCount);
+            for (int i = 0; i < edgeCount; i++) {
+                targets[next[from[i]]++] = to[i];
+            }
+            // Already sorted when the scan comes in (follower, followee) order; cheap to make sure
+            IntStream.range(0, userCount).parallel().forEach(i -> Arrays.sort(targets, offsets[i], offsets[i + 1]));
+
+            long[] popularIds = IntStream.range(0, userCount).boxed()
+                    .filter(i -> inDegree[i] > 0)
+                    .sorted(Comparator.comparingInt((Integer i) -> inDegree[i]).reversed())
+                    .limit(POPULAR_SIZE)
+                    .mapToLong(i -> userIds[i])
+                    .toArray();
+
+            return new Graph(userIds, offsets, targets, inDegree, popularIds);
+        }
+
+        private int indexOf(long userId) {
+            int index = Arrays.binarySearch(userIds, userId);
+            return index >= 0 ? index : -1;
+        }
+
+        private int degree(int index) {
+            return offsets[index + 1] - offsets[index];
+        }
+
+        private boolean hasEdge(int from, int to) {
+            return to >= 0 && Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to) >= 0;
+        }
+    }
+
+    // Copies each followee's (capped) row into its slice of the shared buffer
+    private static final class Gather extends RecursiveAction {
+        private final Graph graph;
+        private final int[] followees;
+        private final int[] starts;
+        private final int[] reached;
+        private final int from;
+        private final int to;
+
+        private Gather(Graph graph, int[] followees, int[] starts, int[] reached, int from, int to) {
+            this.graph = graph;
+            this.followees = followees;
+            this.starts = starts;
+            this.reached = reached;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GATHER_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    int rowStart = graph.offsets[followees[i]];
+                    System.arraycopy(graph.targets, rowStart, reached, starts[i], starts[i + 1] - starts[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Gather(graph, followees, starts, reached, from, middle),
+                    new Gather(graph, followees, starts, reached, middle, to));
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
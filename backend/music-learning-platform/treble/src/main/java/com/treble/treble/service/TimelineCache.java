@@ -0,0 +1,324 @@
+package com.treble.treble.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Newest post ids of recently active users' home timelines, kept off-heap.
+ *
+ * One direct buffer is carved into fixed-size slots; each slot is a ring buffer of
+ * {@code long} post ids for one user, newest at the head. Users are hashed onto
+ * stripes, each owning its own share of the slots, its own lock and its own
+ * least-recently-read eviction order, so readers and fan-out of different users do
+ * not queue behind one lock. Each stripe also indexes which of its slots hold a post,
+ * so removing a post only rewrites the slots that contain it.
+ *
+ * Filling a slot from the database is versioned: {@link #beginFill} is called before
+ * the read and {@link #put} drops the result if the user received a push or
+ * invalidation in between, since the read may predate that write.
+ */
+@Component
+public class TimelineCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.timeline.cache.entries-per-user:300}")
+    private int capacity;
+
+    @Value("${app.timeline.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${app.timeline.cache.stripes:16}")
+    private int stripeCount;
+
+    private Stripe[] stripes;
+    private final AtomicLong fillSequence = new AtomicLong();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter staleFills;
+
+    @PostConstruct
+    public void init() {
+        stripeCount = Math.max(1, Math.min(stripeCount, maxUsers));
+        ByteBuffer slab = ByteBuffer.allocateDirect(Math.multiplyExact(Math.multiplyExact(maxUsers, capacity), Long.BYTES));
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            int firstSlot = (int) ((long) maxUsers * i / stripeCount);
+            int endSlot = (int) ((long) maxUsers * (i + 1) / stripeCount);
+            stripes[i] = new Stripe(slab.slice(firstSlot * capacity * Long.BYTES, (endSlot - firstSlot) * capacity * Long.BYTES),
+                    endSlot - firstSlot);
+        }
+
+        hits = meterRegistry.counter("timeline.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("timeline.cache.requests", "result", "miss");
+        evictions = meterRegistry.counter("timeline.cache.evictions");
+        staleFills = meterRegistry.counter("timeline.cache.fills.stale");
+        Gauge.builder("timeline.cache.users", this, TimelineCache::residentUsers).register(meterRegistry);
+        Gauge.builder("timeline.cache.offheap.bytes", slab, ByteBuffer::capacity).register(meterRegistry);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns up to {@code count} newest post ids, or null (a miss) when the user is not
+     * resident or the slot holds fewer ids than asked for without being complete.
+     */
+    public long[] getNewest(Long userId, int count) {
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            Integer slot = stripe.slotsByUser.get(userId);
+            if (slot == null || (stripe.sizes[slot] < count && !stripe.complete[slot])) {
+                misses.increment();
+                return null;
+            }
+
+            hits.increment();
+            int n = Math.min(count, stripe.sizes[slot]);
+            long[] postIds = new long[n];
+            for (int i = 0; i < n; i++) {
+                postIds[i] = stripe.read(slot, i);
+            }
+            return postIds;
+        }
+    }
+
+    // Call before reading the timeline from the database; pass the token to put()
+    public long beginFill(Long userId) {
+        Stripe stripe = stripeOf(userId);
+        long token = fillSequence.incrementAndGet();
+        synchronized (stripe) {
+            stripe.pendingFills.put(userId, token);
+        }
+        return token;
+    }
+
+    /**
+     * Replaces the user's slot with the given ids, newest first. Returns false, leaving
+     * the cache untouched, when the user was written to since {@link #beginFill}.
+     */
+    public boolean put(Long userId, List<Long> postIds, boolean isComplete, long fillToken) {
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            if (!stripe.pendingFills.remove(userId, fillToken)) {
+                staleFills.increment();
+                return false;
+            }
+
+            Integer slot = stripe.slotsByUser.get(userId);
+            if (slot == null) {
+                slot = stripe.allocateSlot();
+                stripe.slotsByUser.put(userId, slot);
+            } else {
+                stripe.clear(slot);
+            }
+
+            int n = Math.min(postIds.size(), capacity);
+            // Write oldest first so the newest id ends up at the head
+            for (int i = n - 1; i >= 0; i--) {
+                stripe.push(slot, postIds.get(i));
+            }
+            stripe.complete[slot] = isComplete && n == postIds.size();
+            return true;
+        }
+    }
+
+    // Only touches users that are already resident; others load on their next read
+    public void pushIfPresent(Long userId, long postId) {
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            // A fill in flight may have read the timeline before this post
+            stripe.pendingFills.remove(userId);
+
+            Integer slot = stripe.slotsByUser.get(userId);
+            if (slot != null) {
+                boolean wasFull = stripe.sizes[slot] == capacity;
+                if (stripe.push(slot, postId) && wasFull) {
+                    stripe.complete[slot] = false;
+                }
+            }
+        }
+    }
+
+    public void remove(long postId) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                // Fills in flight may have read the post before it was deleted
+                stripe.pendingFills.clear();
+
+                Set<Integer> slots = stripe.slotsByPost.remove(postId);
+                if (slots == null) {
+                    continue;
+                }
+                for (int slot : slots) {
+                    stripe.rewriteWithout(slot, postId);
+                }
+            }
+        }
+    }
+
+    public void invalidate(Long userId) {
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            stripe.pendingFills.remove(userId);
+            Integer slot = stripe.slotsByUser.remove(userId);
+            if (slot != null) {
+                stripe.release(slot);
+            }
+        }
+    }
+
+    // Resident users plus users whose fill is in flight, so pushes can mark those fills stale
+    public List<Long> residentUserIds() {
+        List<Long> userIds = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                userIds.addAll(stripe.slotsByUser.keySet());
+                for (Long userId : stripe.pendingFills.keySet()) {
+                    if (!stripe.slotsByUser.containsKey(userId)) {
+                        userIds.add(userId);
+                    }
+                }
+            }
+        }
+        return userIds;
+    }
+
+    public int residentUsers() {
+        int users = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                users += stripe.slotsByUser.size();
+            }
+        }
+        return users;
+    }
+
+    private Stripe stripeOf(Long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), stripes.length)];
+    }
+
+    // Slots, eviction order and post index for the users hashed onto one stripe
+    private final class Stripe {
+        private final ByteBuffer slab;
+        private final int[] heads;
+        private final int[] sizes;
+        // A complete slot holds the user's whole timeline, so a short slot is still a hit
+        private final boolean[] complete;
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private final LinkedHashMap<Long, Integer> slotsByUser = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<Long, Set<Integer>> slotsByPost = new HashMap<>();
+        private final Map<Long, Long> pendingFills = new HashMap<>();
+
+        private Stripe(ByteBuffer slab, int slotCount) {
+            this.slab = slab;
+            heads = new int[slotCount];
+            sizes = new int[slotCount];
+            complete = new boolean[slotCount];
+            for (int slot = 0; slot < slotCount; slot++) {
+                freeSlots.add(slot);
+            }
+        }
+
+        private int allocateSlot() {
+            if (freeSlots.isEmpty()) {
+                // Access order puts the least recently read user first
+                Long eldest = slotsByUser.keySet().iterator().next();
+                release(slotsByUser.remove(eldest));
+                evictions.increment();
+            }
+            return freeSlots.poll();
+        }
+
+        private void release(int slot) {
+            clear(slot);
+            freeSlots.add(slot);
+        }
+
+        private void clear(int slot) {
+            for (int i = 0; i < sizes[slot]; i++) {
+                unindex(read(slot, i), slot);
+            }
+            sizes[slot] = 0;
+            heads[slot] = capacity - 1;
+            complete[slot] = false;
+        }
+
+        // Returns false when the slot already holds the post
+        private boolean push(int slot, long postId) {
+            Set<Integer> holders = slotsByPost.get(postId);
+            if (holders != null && holders.contains(slot)) {
+                return false;
+            }
+            int head = (heads[slot] + 1) % capacity;
+            if (sizes[slot] == capacity) {
+                // The ring is full, so the id under the new head is the oldest one
+                unindex(slab.getLong(offset(slot, head)), slot);
+            }
+            slab.putLong(offset(slot, head), postId);
+            heads[slot] = head;
+            sizes[slot] = Math.min(sizes[slot] + 1, capacity);
+            slotsByPost.computeIfAbsent(postId, id -> new HashSet<>()).add(slot);
+            return true;
+        }
+
+        // The caller has already dropped the post from the index
+        private void rewriteWithout(int slot, long postId) {
+            int size = sizes[slot];
+            long[] kept = new long[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                long id = read(slot, i);
+                if (id != postId) {
+                    kept[n++] = id;
+                }
+            }
+            sizes[slot] = 0;
+            heads[slot] = capacity - 1;
+            for (int i = n - 1; i >= 0; i--) {
+                int head = (heads[slot] + 1) % capacity;
+                slab.putLong(offset(slot, head), kept[i]);
+                heads[slot] = head;
+            }
+            sizes[slot] = n;
+        }
+
+        private void unindex(long postId, int slot) {
+            Set<Integer> holders = slotsByPost.get(postId);
+            if (holders != null && holders.remove(slot) && holders.isEmpty()) {
+                slotsByPost.remove(postId);
+            }
+        }
+
+        // i = 0 is the newest id
+        private long read(int slot, int i) {
+            int index = (heads[slot] - i + capacity) % capacity;
+            return slab.getLong(offset(slot, index));
+        }
+
+        private int offset(int slot, int index) {
+            return (slot * capacity + index) * Long.BYTES;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.treble.treble.service;
+
+import com.treble.treble.dto.CursorPage;
+import com.treble.treble.dto.PostResponse;
+import com.treble.treble.model.Post;
+import com.treble.treble.model.TimelineEntry;
+import com.treble.treble.repository.PostRepository;
+import com.treble.treble.repository.TimelineEntryRepository;
+import com.treble.treble.repository.UserRepository;
+import com.treble.treble.util.AfterCommit;
+import com.treble.treble.util.Cursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Home timelines materialized on write: every new post is pushed into the
+ * timeline_entries rows of its author's followers, so reading a timeline is a
+ * single range scan on (user_id, created_at, post_id).
+ *
+ * Accounts above the fan-out threshold (see {@link HighFollowerRegistry}) are the
+ * exception: their posts stay in the posts table and are k-way merged into each
+ * follower's page at read time, so publishing stays cheap no matter how many
+ * followers they have. Once such an account drops below the threshold, the posts it
+ * published meanwhile are fanned out after the fact and it stops being merged.
+ */
+@Service
+public class TimelineService {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    @Autowired
+    private TimelineEntryRepository timelineEntryRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeedAssembler feedAssembler;
+
+    @Autowired
+    private HighFollowerRegistry highFollowerRegistry;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.timeline.fanout-batch-size:500}")
+    private int fanoutBatchSize;
+
+    @Value("${app.timeline.backfill-size:50}")
+    private int backfillSize;
+
+    // Upper bound on per-author lists merged into one timeline read
+    @Value("${app.timeline.max-merged-authors:50}")
+    private int maxMergedAuthors;
+
+    private Counter truncatedMerges;
+
+    @PostConstruct
+    public void init() {
+        truncatedMerges = meterRegistry.counter("timeline.merged.authors.truncated");
+    }
+
+    @Async("timelineExecutor")
+    public void fanOutPost(Long postId, Long authorId, LocalDateTime createdAt) {
+        // Authors see their own posts on their home timeline
+        timelineEntryRepository.save(new TimelineEntry(authorId, postId, authorId, createdAt));
+        timelineCache.pushIfPresent(authorId, postId);
+
+        if (highFollowerRegistry.isHighFollower(authorId)) {
+            logger.debug("Skipping fan-out of post {}: user {} is merged at read time", postId, authorId);
+            pushToCachedFollowers(authorId, postId);
+            return;
+        }
+
+        long afterId = 0L;
+        int delivered = 0;
+        while (true) {
+            List<Long> followerIds = userRepository.findFollowerIdsAfter(authorId, afterId, fanoutBatchSize);
+            if (followerIds.isEmpty()) {
+                break;
+            }
+
+            List<TimelineEntry> entries = followerIds.stream()
+                    .map(followerId -> new TimelineEntry(followerId, postId, authorId, createdAt))
+                    .collect(Collectors.toList());
+            timelineEntryRepository.saveAll(entries);
+            followerIds.forEach(followerId -> timelineCache.pushIfPresent(followerId, postId));
+
+            delivered += followerIds.size();
+            afterId = followerIds.get(followerIds.size() - 1);
+        }
+
+        logger.debug("Fanned out post {} to {} followers of user {}", postId, delivered, authorId);
+    }
+
+    @Async("timelineExecutor")
+    @Transactional
+    public void removePost(Long postId) {
+        timelineEntryRepository.deleteByPostId(postId);
+        AfterCommit.run(() -> timelineCache.remove(postId));
+    }
+
+    // Seeds a new follower's timeline with the followed user's recent posts
+    @Async("timelineExecutor")
+    @Transactional
+    public void backfillAuthor(Long userId, Long authorId) {
+        // Once the entries commit, so a fill that read the timeline before them is discarded
+        AfterCommit.run(() -> timelineCache.invalidate(userId));
+        if (highFollowerRegistry.isHighFollower(authorId)) {
+            return;
+        }
+
+        List<Post> recentPosts = postRepository.findByUserIdOrderByCreatedAtDescIdDesc(authorId, PageRequest.of(0, backfillSize));
+        if (recentPosts.isEmpty()) {
+            return;
+        }
+
+        Set<Long> existing = new HashSet<>(timelineEntryRepository.findExistingPostIds(userId,
+                recentPosts.stream().map(Post::getId).collect(Collectors.toList())));
+
+        List<TimelineEntry> entries = recentPosts.stream()
+                .filter(post -> !existing.contains(post.getId()))
+                .map(post -> new TimelineEntry(userId, post.getId(), authorId, post.getCreatedAt()))
+                .collect(Collectors.toList());
+        timelineEntryRepository.saveAll(entries);
+    }
+
+    @Async("timelineExecutor")
+    @Transactional
+    public void removeAuthor(Long userId, Long authorId) {
+        timelineEntryRepository.deleteByUserIdAndAuthorId(userId, authorId);
+        AfterCommit.run(() -> timelineCache.invalidate(userId));
+    }
+
+    /**
+     * Fans out the posts that accounts published while above the threshold, once they have
+     * dropped below it. Until that succeeds they stay merged at read time.
+     */
+    @Async("timelineExecutor")
+    @Scheduled(fixedDelayString = "${app.timeline.high-follower-refresh-ms:300000}",
+            initialDelayString = "${app.timeline.high-follower-refresh-ms:300000}")
+    public synchronized void catchUpDepartedAuthors() {
+        for (Long authorId : highFollowerRegistry.getDepartedIds()) {
+            try {
+                int caughtUp = catchUpAuthor(authorId);
+                highFollowerRegistry.markCaughtUp(authorId);
+                logger.info("Fanned out {} skipped posts of user {} after it dropped below the threshold", caughtUp, authorId);
+            } catch (RuntimeException e) {
+                logger.error("Catching up user {} failed, retrying on the next run: {}", authorId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private int catchUpAuthor(Long authorId) {
+        int caughtUp = 0;
+        long afterPostId = 0L;
+        while (true) {
+            List<Post> posts = postRepository.findWithoutFanOutAfter(authorId, afterPostId, PageRequest.of(0, backfillSize));
+            if (posts.isEmpty()) {
+                return caughtUp;
+            }
+            deliverToFollowers(authorId, posts);
+            caughtUp += posts.size();
+            afterPostId = posts.get(posts.size() - 1).getId();
+        }
+    }
+
+    private void deliverToFollowers(Long authorId, List<Post> posts) {
+        List<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+        long afterId = 0L;
+        while (true) {
+            List<Long> followerIds = userRepository.findFollowerIdsAfter(authorId, afterId, fanoutBatchSize);
+            if (followerIds.isEmpty()) {
+                return;
+            }
+
+            // Followers who followed after the drop were already backfilled with some of them
+            Set<List<Long>> existing = timelineEntryRepository.findExistingEntries(followerIds, postIds).stream()
+                    .map(row -> List.of((Long) row[0], (Long) row[1]))
+                    .collect(Collectors.toSet());
+            List<TimelineEntry> entries = new ArrayList<>();
+            for (Long followerId : followerIds) {
+                for (Post post : posts) {
+                    if (!existing.contains(List.of(followerId, post.getId()))) {
+                        entries.add(new TimelineEntry(followerId, post.getId(), authorId, post.getCreatedAt()));
+                    }
+                }
+            }
+            timelineEntryRepository.saveAll(entries);
+
+            afterId = followerIds.get(followerIds.size() - 1);
+        }
+    }
+
+    // Posts that skip fan-out still have to reach the cached first pages of followers
+    private void pushToCachedFollowers(Long authorId, Long postId) {
+        List<Long> residentUserIds = timelineCache.residentUserIds();
+        for (int from = 0; from < residentUserIds.size(); from += fanoutBatchSize) {
+            List<Long> batch = residentUserIds.subList(from, Math.min(from + fanoutBatchSize, residentUserIds.size()));
+            userRepository.findFollowersAmong(authorId, batch)
+                    .forEach(followerId -> timelineCache.pushIfPresent(followerId, postId));
+        }
+    }
+
+    public CursorPage<PostResponse> getTimeline(Long userId, String cursor, Integer limit) {
+        int pageSize = Cursor.clampPageSize(limit);
+        Cursor after = Cursor.decode(cursor);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        // The first page is served from the off-heap cache when the user is resident
+        boolean firstPage = after == null && pageSize + 1 <= timelineCache.getCapacity();
+        long fillToken = 0L;
+        if (firstPage) {
+            long[] cachedPostIds = timelineCache.getNewest(userId, pageSize + 1);
+            if (cachedPostIds != null) {
+                return pageFromCache(cachedPostIds, pageSize, userId);
+            }
+            // Taken before the read, so a post fanned out meanwhile discards this fill
+            fillToken = timelineCache.beginFill(userId);
+        }
+
+        List<List<TimelineItem>> sources = new ArrayList<>();
+
+        List<TimelineEntry> entries = after == null
+                ? timelineEntryRepository.findByUserIdOrderByCreatedAtDescPostIdDesc(userId, pageRequest)
+                : timelineEntryRepository.findPageBefore(userId, after.getCreatedAt(), after.getId(), pageRequest);
+        sources.add(entries.stream()
+                .map(entry -> new TimelineItem(entry.getCreatedAt(), entry.getPostId(), null))
+                .collect(Collectors.toList()));
+
+        for (Long authorId : findMergedAuthors(userId)) {
+            List<Post> posts = after == null
+                    ? postRepository.findByUserIdOrderByCreatedAtDescIdDesc(authorId, pageRequest)
+                    : postRepository.findByUserIdPageBefore(authorId, after.getCreatedAt(), after.getId(), pageRequest);
+            sources.add(posts.stream()
+                    .map(post -> new TimelineItem(post.getCreatedAt(), post.getId(), post))
+                    .collect(Collectors.toList()));
+        }
+
+        List<TimelineItem> merged = mergeNewestFirst(sources, pageSize + 1);
+        if (firstPage) {
+            timelineCache.put(userId,
+                    merged.stream().map(item -> item.postId).collect(Collectors.toList()),
+                    merged.size() < pageSize + 1, fillToken);
+        }
+
+        return CursorPage.fromRows(merged, pageSize,
+                item -> new Cursor(item.createdAt, item.postId),
+                page -> loadPosts(page, userId));
+    }
+
+    private CursorPage<PostResponse> pageFromCache(long[] cachedPostIds, int pageSize, Long userId) {
+        List<Long> postIds = Arrays.stream(cachedPostIds).boxed().collect(Collectors.toList());
+        List<TimelineItem> items = postRepository.findAllById(postIds).stream()
+                .map(post -> new TimelineItem(post.getCreatedAt(), post.getId(), post))
+                .sorted(TimelineItem.NEWEST_FIRST)
+                .collect(Collectors.toList());
+
+        return CursorPage.fromRows(items, pageSize,
+                item -> new Cursor(item.createdAt, item.postId),
+                page -> loadPosts(page, userId));
+    }
+
+    /**
+     * Merged accounts the user follows, whose posts were not fanned out. Past
+     * {@code maxMergedAuthors} only the most recently active ones are merged, so the
+     * same accounts are kept on every read; the rest are counted as truncated.
+     */
+    private List<Long> findMergedAuthors(Long userId) {
+        Set<Long> mergedAuthorIds = highFollowerRegistry.getMergedAuthorIds();
+        if (mergedAuthorIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> followed = userRepository.findFollowedAmong(userId, mergedAuthorIds);
+        if (followed.size() <= maxMergedAuthors) {
+            return followed;
+        }
+
+        List<Long> merged = postRepository.findUserIdsByLatestPost(followed, PageRequest.of(0, maxMergedAuthors));
+        truncatedMerges.increment();
+        logger.debug("Merging {} of {} merged authors followed by user {}", merged.size(), followed.size(), userId);
+        return merged;
+    }
+
+    /**
+     * K-way merge of lists that are each sorted newest first. A post can show up in more
+     * than one list (e.g. fanned out before its author crossed the threshold), so ids are
+     * de-duplicated as they are taken.
+     */
+    private List<TimelineItem> mergeNewestFirst(List<List<TimelineItem>> sources, int count) {
+        PriorityQueue<MergeHead> heads = new PriorityQueue<>();
+        for (List<TimelineItem> source : sources) {
+            if (!source.isEmpty()) {
+                heads.add(new MergeHead(source));
+            }
+        }
+
+        Set<Long> seen = new HashSet<>();
+        List<TimelineItem> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < count) {
+            MergeHead head = heads.poll();
+            TimelineItem item = head.current();
+            if (seen.add(item.postId)) {
+                merged.add(item);
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Loads posts keeping the merged order; posts deleted since fan-out are skipped
+    private List<PostResponse> loadPosts(List<TimelineItem> items, Long viewerId) {
+        List<Long> missingIds = items.stream()
+                .filter(item -> item.post == null)
+                .map(item -> item.postId)
+                .collect(Collectors.toList());
+        Map<Long, Post> postsById = postRepository.findAllById(missingIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        List<Post> ordered = new ArrayList<>();
+        for (TimelineItem item : items) {
+            Post post = item.post != null ? item.post : postsById.get(item.postId);
+            if (post != null) {
+                ordered.add(post);
+            }
+        }
+        return feedAssembler.assemble(ordered, viewerId);
+    }
+
+    private static class TimelineItem {
+        // Newest first, ties broken by the higher post id, matching the cursor order
+        private static final Comparator<TimelineItem> NEWEST_FIRST = Comparator
+                .comparing((TimelineItem item) -> item.createdAt)
+                .thenComparing(item -> item.postId)
+                .reversed();
+
+        private final LocalDateTime createdAt;
+        private final Long postId;
+        private final Post post;
+
+        private TimelineItem(LocalDateTime createdAt, Long postId, Post post) {
+            this.createdAt = createdAt;
+            this.postId = postId;
+            this.post = post;
+        }
+    }
+
+    private static class MergeHead implements Comparable<MergeHead> {
+        private final List<TimelineItem> items;
+        private int position;
+
+        private MergeHead(List<TimelineItem> items) {
+            this.items = items;
+        }
+
+        private TimelineItem current() {
+            return items.get(position);
+        }
+
+        private boolean advance() {
+            position++;
+            return position < items.size();
+        }
+
+        @Override
+        public int compareTo(MergeHead other) {
+            return TimelineItem.NEWEST_FIRST.compare(current(), other.current());
+        }
+    }
+}
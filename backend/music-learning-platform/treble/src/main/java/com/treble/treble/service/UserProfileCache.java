@@ -0,0 +1,105 @@
+package com.treble.treble.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.treble.treble.dto.UserDTO;
+import com.treble.treble.exception.ResourceNotFoundException;
+import com.treble.treble.model.User;
+import com.treble.treble.repository.UserRepository;
+import com.treble.treble.util.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The author summary embedded in posts, comments, likes, notifications and progress
+ * updates, cached by user id.
+ *
+ * Bounded by size with Caffeine's W-TinyLFU eviction, so frequently seen authors stay in
+ * memory, and by a TTL as a backstop. {@link UserService} invalidates an entry once a
+ * change to the user commits. Cached DTOs are shared between responses and must not be
+ * modified. Hit ratio and evictions are exported as {@code cache.*{cache=user-profiles}}.
+ */
+@Component
+public class UserProfileCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.users.profile-cache.max-size:50000}")
+    private long maxSize;
+
+    @Value("${app.users.profile-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private LoadingCache<Long, UserDTO> profiles;
+
+    @PostConstruct
+    public void init() {
+        profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public UserDTO load(Long id) {
+                        return userRepository.findById(id).map(UserProfileCache::toDTO).orElse(null);
+                    }
+
+                    // One query for every id a bulk lookup misses
+                    @Override
+                    public Map<Long, UserDTO> loadAll(Set<? extends Long> ids) {
+                        return userRepository.findAllById(List.copyOf(ids)).stream()
+                                .collect(Collectors.toMap(User::getId, UserProfileCache::toDTO));
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "user-profiles");
+    }
+
+    public UserDTO get(Long userId) {
+        UserDTO profile = profiles.get(userId);
+        if (profile == null) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        return profile;
+    }
+
+    // Users that do not exist are left out of the map
+    public Map<Long, UserDTO> getAll(Collection<Long> userIds) {
+        return profiles.getAll(userIds);
+    }
+
+    // Drops the entry once the caller's transaction commits, so a concurrent read cannot cache the old row again
+    public void invalidate(Long userId) {
+        AfterCommit.run(() -> profiles.invalidate(userId));
+    }
+
+    public static UserDTO toDTO(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setFirstName(user.getFirstName());
+        dto.setLastName(user.getLastName());
+        dto.setEmail(user.getEmail());
+        dto.setUserRole(user.getUserRole());
+        dto.setGender(user.getGender());
+        dto.setProfilePictureUrl(user.getProfilePictureUrl());
+        // Not invalidated on follow, so these can lag by up to the TTL; GET /users/{id} reads them fresh
+        dto.setFollowerCount(user.getFollowerCount());
+        dto.setFollowingCount(user.getFollowingCount());
+        return dto;
+    }
+}
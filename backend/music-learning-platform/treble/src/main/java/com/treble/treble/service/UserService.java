@@ -1,23 +1,61 @@
 package com.treble.treble.service;
 
+import com.treble.treble.dto.CursorPage;
+import com.treble.treble.dto.SuggestionResponse;
+import com.treble.treble.dto.UserDTO;
+import com.treble.treble.exception.ResourceNotFoundException;
 import com.treble.treble.model.User;
+import com.treble.treble.repository.FollowJdbcRepository;
 import com.treble.treble.repository.UserRepository;
+import com.treble.treble.util.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FollowJdbcRepository followJdbcRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private RequestBatchLoader requestBatchLoader;
+
+    @Autowired
+    private SuggestionEngine suggestionEngine;
+
     public User createUser(User user) {
         // Check for duplicate email
         if (userRepository.findByEmail(user.getEmail()) != null) {
@@ -50,6 +88,21 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    // Hands every user to the sink in id order, one keyset chunk in the persistence context at a time
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<User> sink) {
+        PageRequest chunk = PageRequest.of(0, EXPORT_CHUNK_SIZE);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(0L, chunk);
+        while (!users.isEmpty()) {
+            users.forEach(sink);
+            Long lastId = users.get(users.size() - 1).getId();
+            entityManager.clear();
+            users = users.size() < EXPORT_CHUNK_SIZE
+                    ? List.of()
+                    : userRepository.findByIdGreaterThanOrderByIdAsc(lastId, chunk);
+        }
+    }
+
     public User getUserById(Long id) {
         return userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
@@ -71,36 +124,102 @@ public class UserService {
         if (user.getContactNo() != null) existing.setContactNo(user.getContactNo());
         if (user.getUserRole() != null) existing.setUserRole(user.getUserRole());
 
-        return userRepository.save(existing);
+        User saved = userRepository.save(existing);
+        // Names and pictures are embedded in post and learning plan responses
+        userProfileCache.invalidate(id);
+        contentVersions.bump(ContentVersions.USERS);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        userProfileCache.invalidate(id);
+        contentVersions.bump(ContentVersions.USERS);
     }
 
+    // Touches two user_followers rows and two counter rows whatever the follower counts are
+    @Transactional
     public void followUser(Long id, Long followId) {
-        User user = getUserById(id);
-        User toFollow = getUserById(followId);
+        requireExists(id);
+        requireExists(followId);
 
-        if (!user.getFollowing().contains(toFollow)) {
-            user.getFollowing().add(toFollow);
-            toFollow.getFollowers().add(user);
-
-            userRepository.save(user);
-            userRepository.save(toFollow);
+        // A plain read takes no locks, so repeated clicks cost nothing
+        if (followJdbcRepository.exists(followId, id)) {
+            return;
+        }
+        if (followJdbcRepository.insertIfAbsent(followId, id)) {
+            userRepository.adjustFollowCounts(followId, id, 1);
+            suggestionEngine.recordFollow(id, followId, true);
+            timelineService.backfillAuthor(id, followId);
         }
     }
 
+    @Transactional
     public void unfollowUser(Long id, Long unfollowId) {
-        User user = getUserById(id);
-        User toUnfollow = getUserById(unfollowId);
+        requireExists(id);
+        requireExists(unfollowId);
+
+        if (!followJdbcRepository.exists(unfollowId, id)) {
+            return;
+        }
+        if (followJdbcRepository.delete(unfollowId, id)) {
+            userRepository.adjustFollowCounts(unfollowId, id, -1);
+            suggestionEngine.recordFollow(id, unfollowId, false);
+            timelineService.removeAuthor(id, unfollowId);
+        }
+    }
+
+    public boolean isFollowing(Long id, Long followId) {
+        return followJdbcRepository.exists(followId, id);
+    }
 
-        if (user.getFollowing().contains(toUnfollow)) {
-            user.getFollowing().remove(toUnfollow);
-            toUnfollow.getFollowers().remove(user);
+    // Keyset pages over user_followers in follower id order; no follower collection is loaded
+    public CursorPage<UserDTO> getFollowersPage(Long id, String cursor, Integer limit) {
+        requireExists(id);
+        int pageSize = Cursor.clampPageSize(limit);
+        List<Long> followerIds = userRepository.findFollowerIdsAfter(id, Cursor.decodeId(cursor), pageSize + 1);
+        return toUserPage(followerIds, pageSize);
+    }
+
+    public CursorPage<UserDTO> getFollowingPage(Long id, String cursor, Integer limit) {
+        requireExists(id);
+        int pageSize = Cursor.clampPageSize(limit);
+        List<Long> followingIds = userRepository.findFollowingIdsAfter(id, Cursor.decodeId(cursor), pageSize + 1);
+        return toUserPage(followingIds, pageSize);
+    }
+
+    // Ranked from the in-memory follow graph; profiles come from the profile cache
+    public List<SuggestionResponse> getSuggestions(Long id, Integer limit) {
+        requireExists(id);
+        int size = limit == null ? DEFAULT_SUGGESTIONS : Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        List<SuggestionEngine.Suggestion> suggestions = suggestionEngine.suggest(id, size);
+
+        Map<Long, UserDTO> users = requestBatchLoader.users(suggestions.stream()
+                .map(SuggestionEngine.Suggestion::getUserId)
+                .collect(Collectors.toList()));
+        return suggestions.stream()
+                .filter(suggestion -> users.containsKey(suggestion.getUserId()))
+                .map(suggestion -> new SuggestionResponse(users.get(suggestion.getUserId()), suggestion.getMutualCount()))
+                .collect(Collectors.toList());
+    }
+
+    private CursorPage<UserDTO> toUserPage(List<Long> userIds, int pageSize) {
+        boolean hasMore = userIds.size() > pageSize;
+        List<Long> pageIds = hasMore ? userIds.subList(0, pageSize) : userIds;
+        String nextCursor = hasMore ? Cursor.encodeId(pageIds.get(pageIds.size() - 1)) : null;
+
+        Map<Long, UserDTO> users = requestBatchLoader.users(pageIds);
+        // A user deleted since the ids were read is left out
+        List<UserDTO> items = pageIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor);
+    }
 
-            userRepository.save(user);
-            userRepository.save(toUnfollow);
+    private void requireExists(Long id) {
+        if (!userRepository.existsById(id)) {
+            throw new ResourceNotFoundException("User not found with id: " + id);
         }
     }
-}
\ No newline at end of file
+}
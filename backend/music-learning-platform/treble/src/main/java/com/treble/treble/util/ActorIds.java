@@ -0,0 +1,42 @@
+package com.treble.treble.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The comma-separated list of recent actor ids kept on a coalesced notification,
+ * most recent first and capped at {@link #MAX_RECENT}.
+ */
+public final class ActorIds {
+
+    public static final int MAX_RECENT = 3;
+
+    private ActorIds() {
+    }
+
+    public static List<Long> parse(String value) {
+        List<Long> ids = new ArrayList<>();
+        if (value == null || value.isBlank()) {
+            return ids;
+        }
+        for (String id : value.split(",")) {
+            ids.add(Long.parseLong(id.trim()));
+        }
+        return ids;
+    }
+
+    public static String format(List<Long> ids) {
+        return ids.stream()
+                .limit(MAX_RECENT)
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    // Moves the actor to the front; returns false if it was already among the recent actors
+    public static boolean pushFront(List<Long> ids, Long actorId) {
+        boolean isNew = !ids.remove(actorId);
+        ids.add(0, actorId);
+        return isNew;
+    }
+}
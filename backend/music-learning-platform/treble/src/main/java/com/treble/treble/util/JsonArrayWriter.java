@@ -0,0 +1,48 @@
+package com.treble.treble.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a JSON array element by element straight to an output stream, so an export
+ * holds one element in memory at a time instead of the whole list.
+ *
+ * Call {@link #finish()} after the last element. If the export fails before that, the
+ * array is left unterminated so the client sees invalid JSON rather than a short list.
+ */
+public class JsonArrayWriter implements Closeable {
+
+    // Same defaults as the MVC Jackson converter, since @EnableWebMvc bypasses Boot's ObjectMapper
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private final JsonGenerator generator;
+
+    public JsonArrayWriter(OutputStream out) throws IOException {
+        generator = OBJECT_MAPPER.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartArray();
+    }
+
+    public void write(Object item) {
+        try {
+            generator.writeObject(item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
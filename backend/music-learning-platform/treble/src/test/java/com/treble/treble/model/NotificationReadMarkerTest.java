@@ -0,0 +1,39 @@
+package com.treble.treble.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationReadMarkerTest {
+
+    private static final LocalDateTime READ_AT = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private final NotificationReadMarker marker = marker(READ_AT, 10L);
+
+    @Test
+    void coversEarlierNotifications() {
+        assertTrue(marker.covers(READ_AT.minusSeconds(1), 99L));
+    }
+
+    @Test
+    void sameTimestampIsDecidedById() {
+        assertTrue(marker.covers(READ_AT, 9L));
+        assertTrue(marker.covers(READ_AT, 10L));
+        assertFalse(marker.covers(READ_AT, 11L));
+    }
+
+    @Test
+    void laterNotificationsStayUnread() {
+        assertFalse(marker.covers(READ_AT.plusNanos(1000), 1L));
+    }
+
+    private static NotificationReadMarker marker(LocalDateTime lastReadAt, Long lastReadNotificationId) {
+        NotificationReadMarker marker = new NotificationReadMarker(1L);
+        marker.setLastReadAt(lastReadAt);
+        marker.setLastReadNotificationId(lastReadNotificationId);
+        return marker;
+    }
+}
@@ -0,0 +1,121 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.Like;
+import com.treble.treble.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the portable NOT EXISTS path; MySQL uses INSERT IGNORE with the same contract
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:likes;MODE=MySQL;NON_KEYWORDS=USER"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LikeJdbcRepository.class)
+class LikeJdbcRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    // TrebleApplication's startup runner needs it
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private LikeJdbcRepository likeJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO posts (id, user_id, created_at, like_count, comment_count) " +
+                "VALUES (1, 5, ?, 0, 0), (2, 5, ?, 0, 0)", NOW, NOW);
+    }
+
+    @Test
+    void insertIfAbsentAddsTheRowOnce() {
+        Like like = new Like(1L, 7L);
+
+        assertTrue(likeJdbcRepository.insertIfAbsent(like));
+        assertNotNull(like.getId());
+        assertFalse(likeJdbcRepository.insertIfAbsent(new Like(1L, 7L)));
+        assertEquals(1, countLikes(1L));
+    }
+
+    @Test
+    void deleteLikeReportsWhetherARowWentAway() {
+        likeJdbcRepository.insertIfAbsent(new Like(1L, 7L));
+
+        assertEquals(1, likeJdbcRepository.deleteLike(1L, 7L));
+        assertEquals(0, likeJdbcRepository.deleteLike(1L, 7L));
+    }
+
+    @Test
+    void batchInsertSkipsExistingPairs() {
+        likeJdbcRepository.insertIfAbsent(new Like(1L, 7L));
+
+        boolean[] inserted = likeJdbcRepository.insertLikes(List.of(pair(1, 7), pair(1, 8), pair(2, 7)), NOW);
+
+        assertArrayEquals(new boolean[]{false, true, true}, inserted);
+        assertEquals(2, countLikes(1L));
+        assertEquals(1, countLikes(2L));
+    }
+
+    @Test
+    void batchDeleteReportsEachPair() {
+        likeJdbcRepository.insertLikes(List.of(pair(1, 7), pair(2, 8)), NOW);
+
+        boolean[] deleted = likeJdbcRepository.deleteLikes(List.of(pair(1, 7), pair(1, 8), pair(2, 8)));
+
+        assertArrayEquals(new boolean[]{true, false, true}, deleted);
+        assertEquals(0, countLikes(1L) + countLikes(2L));
+    }
+
+    @Test
+    void findExistingReturnsOnlyExactPairs() {
+        likeJdbcRepository.insertLikes(List.of(pair(1, 7), pair(2, 8)), NOW);
+
+        // (1, 8) and (2, 7) match the IN lists but are not likes
+        List<long[]> existing = likeJdbcRepository.findExisting(List.of(pair(1, 7), pair(1, 8), pair(2, 7), pair(2, 8)));
+
+        assertEquals(2, existing.size());
+        assertTrue(existing.stream().anyMatch(like -> like[0] == 1 && like[1] == 7));
+        assertTrue(existing.stream().anyMatch(like -> like[0] == 2 && like[1] == 8));
+    }
+
+    @Test
+    void adjustLikeCountsAppliesOneDeltaPerPost() {
+        likeJdbcRepository.adjustLikeCounts(Map.of(1L, 3, 2L, -1));
+
+        assertEquals(3, likeCount(1L));
+        assertEquals(-1, likeCount(2L));
+    }
+
+    private int countLikes(Long postId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE post_id = ?", Integer.class, postId);
+    }
+
+    private int likeCount(Long postId) {
+        return jdbcTemplate.queryForObject("SELECT like_count FROM posts WHERE id = ?", Integer.class, postId);
+    }
+
+    private static long[] pair(long postId, long userId) {
+        return new long[]{postId, userId};
+    }
+}
@@ -0,0 +1,120 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.Notification;
+import com.treble.treble.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:notification-writes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(NotificationJdbcRepository.class)
+class NotificationJdbcRepositoryTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    // TrebleApplication's startup runner needs it
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private NotificationJdbcRepository notificationJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertSetsTheGeneratedIds() {
+        Notification first = notification(CREATED_AT);
+        Notification second = notification(CREATED_AT.plusMinutes(1));
+
+        notificationJdbcRepository.insertNotifications(List.of(first, second));
+
+        assertNotNull(first.getId());
+        assertEquals(CREATED_AT.plusMinutes(1), jdbcTemplate.queryForObject(
+                "SELECT created_at FROM notifications WHERE id = ?", LocalDateTime.class, second.getId()));
+    }
+
+    @Test
+    void mergingActorsKeepsCreatedAtAndRecordsTheActivity() {
+        Notification notification = notification(CREATED_AT);
+        notificationJdbcRepository.insertNotifications(List.of(notification));
+        LocalDateTime activeAt = CREATED_AT.plusHours(3);
+
+        int[] updated = notificationJdbcRepository.mergeActors(List.<Object[]>of(
+                new Object[]{8L, 2, "8,7,9", Timestamp.valueOf(activeAt), notification.getId()}));
+
+        assertArrayEquals(new int[]{1}, updated);
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT actor_count, created_at, updated_at FROM notifications WHERE id = ?", notification.getId());
+        assertEquals(3, ((Number) row.get("actor_count")).intValue());
+        assertEquals(Timestamp.valueOf(CREATED_AT), row.get("created_at"));
+        assertEquals(Timestamp.valueOf(activeAt), row.get("updated_at"));
+    }
+
+    @Test
+    void lateEventsDoNotMoveTheActivityBack() {
+        Notification notification = notification(CREATED_AT);
+        notificationJdbcRepository.insertNotifications(List.of(notification));
+        notificationJdbcRepository.mergeActors(List.<Object[]>of(
+                new Object[]{8L, 1, "8,9", Timestamp.valueOf(CREATED_AT.plusHours(3)), notification.getId()}));
+
+        notificationJdbcRepository.mergeActors(List.<Object[]>of(
+                new Object[]{7L, 1, "7,8,9", Timestamp.valueOf(CREATED_AT.plusHours(1)), notification.getId()}));
+
+        assertEquals(Timestamp.valueOf(CREATED_AT.plusHours(3)), jdbcTemplate.queryForObject(
+                "SELECT updated_at FROM notifications WHERE id = ?", Timestamp.class, notification.getId()));
+    }
+
+    @Test
+    void readRowsAreNotMergedInto() {
+        Notification notification = notification(CREATED_AT);
+        notification.setRead(true);
+        notificationJdbcRepository.insertNotifications(List.of(notification));
+
+        int[] updated = notificationJdbcRepository.mergeActors(List.<Object[]>of(
+                new Object[]{8L, 1, "8,9", Timestamp.valueOf(CREATED_AT.plusHours(1)), notification.getId()}));
+
+        assertArrayEquals(new int[]{0}, updated);
+    }
+
+    @Test
+    void archiveLeavesRowsActiveAfterTheLimit() {
+        Notification quiet = notification(CREATED_AT);
+        Notification active = notification(CREATED_AT);
+        notificationJdbcRepository.insertNotifications(List.of(quiet, active));
+        notificationJdbcRepository.mergeActors(List.<Object[]>of(
+                new Object[]{8L, 1, "8,9", Timestamp.valueOf(CREATED_AT.plusDays(2)), active.getId()}));
+
+        int deleted = notificationJdbcRepository.archiveAndDelete(List.of(quiet.getId(), active.getId()),
+                CREATED_AT.plusDays(1), CREATED_AT.plusDays(3), true);
+
+        assertEquals(1, deleted);
+        assertEquals(List.of(active.getId()), jdbcTemplate.queryForList("SELECT id FROM notifications", Long.class));
+        assertEquals(List.of(quiet.getId()), jdbcTemplate.queryForList("SELECT id FROM notification_archive", Long.class));
+    }
+
+    private static Notification notification(LocalDateTime createdAt) {
+        Notification notification = new Notification(1L, 9L, "LIKE", 100L, "");
+        notification.setActorCount(1);
+        notification.setRecentActorIds("9");
+        notification.setCreatedAt(createdAt);
+        return notification;
+    }
+}
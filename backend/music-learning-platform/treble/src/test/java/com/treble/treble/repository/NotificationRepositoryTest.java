@@ -0,0 +1,63 @@
+package com.treble.treble.repository;
+
+import com.treble.treble.model.Notification;
+import com.treble.treble.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:notifications;MODE=MySQL;NON_KEYWORDS=USER"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NotificationRepositoryTest {
+
+    private static final LocalDateTime READ_AT = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    // TrebleApplication's startup runner needs it
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void unreadCountOnlyIncludesRowsAfterTheWatermark() {
+        save(1L, READ_AT.minusMinutes(5), false);
+        Notification atWatermark = save(1L, READ_AT, false);
+        Notification sameTimeLaterId = save(1L, READ_AT, false);
+        save(1L, READ_AT.plusMinutes(1), false);
+        save(1L, READ_AT.plusMinutes(2), true);
+        // Another user's notifications never count
+        save(2L, READ_AT.plusMinutes(1), false);
+
+        int unread = notificationRepository.countUnreadAfter(1L, READ_AT, atWatermark.getId());
+
+        // The later row at the same timestamp and the newer unread row
+        assertEquals(2, unread);
+        assertEquals(1, notificationRepository.countUnreadAfter(1L, READ_AT, sameTimeLaterId.getId()));
+    }
+
+    @Test
+    void withoutAWatermarkEveryUnreadRowCounts() {
+        save(1L, READ_AT, false);
+        save(1L, READ_AT.plusMinutes(1), true);
+        save(1L, READ_AT.plusMinutes(2), false);
+
+        assertEquals(2, notificationRepository.countByUserIdAndReadFalse(1L));
+    }
+
+    private Notification save(Long userId, LocalDateTime createdAt, boolean read) {
+        Notification notification = new Notification(userId, 9L, "LIKE", 100L, "");
+        notification.setCreatedAt(createdAt);
+        notification.setRead(read);
+        return notificationRepository.save(notification);
+    }
+}
@@ -0,0 +1,74 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.PostRepository;
+import com.treble.treble.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HighFollowerRegistryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private HighFollowerRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new HighFollowerRegistry();
+        ReflectionTestUtils.setField(registry, "userRepository", userRepository);
+        ReflectionTestUtils.setField(registry, "postRepository", postRepository);
+        when(postRepository.findAuthorsWithoutFanOut()).thenReturn(List.of());
+    }
+
+    @Test
+    void droppedAccountStaysMergedUntilCaughtUp() {
+        when(userRepository.findIdsByFollowerCountGreaterThan(anyLong())).thenReturn(List.of(1L, 2L));
+        registry.refresh();
+        when(userRepository.findIdsByFollowerCountGreaterThan(anyLong())).thenReturn(List.of(2L));
+        registry.refresh();
+
+        // New posts fan out again, the ones published above the threshold are still merged
+        assertFalse(registry.isHighFollower(1L));
+        assertEquals(Set.of(1L, 2L), registry.getMergedAuthorIds());
+        assertEquals(Set.of(1L), registry.getDepartedIds());
+
+        registry.markCaughtUp(1L);
+
+        assertEquals(Set.of(2L), registry.getMergedAuthorIds());
+    }
+
+    @Test
+    void accountBackAboveTheThresholdIsNoLongerDeparted() {
+        when(userRepository.findIdsByFollowerCountGreaterThan(anyLong())).thenReturn(List.of(1L));
+        registry.refresh();
+        when(userRepository.findIdsByFollowerCountGreaterThan(anyLong())).thenReturn(List.of());
+        registry.refresh();
+        when(userRepository.findIdsByFollowerCountGreaterThan(anyLong())).thenReturn(List.of(1L));
+        registry.refresh();
+
+        assertTrue(registry.isHighFollower(1L));
+        assertTrue(registry.getDepartedIds().isEmpty());
+    }
+
+    @Test
+    void firstRefreshPicksUpAccountsThatDroppedWhileDown() {
+        // Account 3 is still above the threshold; account 4 dropped below it before startup
+        when(userRepository.findIdsByFollowerCountGreaterThan(anyLong())).thenReturn(List.of(3L));
+        when(postRepository.findAuthorsWithoutFanOut()).thenReturn(List.of(3L, 4L));
+
+        registry.refresh();
+
+        assertEquals(Set.of(4L), registry.getDepartedIds());
+        assertEquals(Set.of(3L, 4L), registry.getMergedAuthorIds());
+    }
+}
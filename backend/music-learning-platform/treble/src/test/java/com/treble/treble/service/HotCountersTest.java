@@ -0,0 +1,150 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.PostJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class HotCountersTest {
+
+    private final PostJdbcRepository postJdbcRepository = mock(PostJdbcRepository.class);
+    private HotCounters hotCounters;
+
+    @BeforeEach
+    void setUp() {
+        hotCounters = new HotCounters();
+        ReflectionTestUtils.setField(hotCounters, "postJdbcRepository", postJdbcRepository);
+        ReflectionTestUtils.setField(hotCounters, "transactionTemplate", new TransactionTemplate(new NoOpTransactionManager()));
+        ReflectionTestUtils.setField(hotCounters, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hotCounters, "enabled", true);
+        hotCounters.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deltaCountsOnceTheCallerCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        hotCounters.addLikes(1L, 1);
+
+        // The like row may already be committed; reconciliation has to leave the post alone
+        assertEquals(0, hotCounters.pendingLikes(1L));
+        assertTrue(hotCounters.hasPending(1L));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(1, hotCounters.pendingLikes(1L));
+        assertTrue(hotCounters.hasPending(1L));
+    }
+
+    @Test
+    void rolledBackDeltaNeverCounts() {
+        TransactionSynchronizationManager.initSynchronization();
+        hotCounters.addComments(1L, 1);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(0, hotCounters.pendingComments(1L));
+        assertFalse(hotCounters.hasPending(1L));
+    }
+
+    @Test
+    void flushWritesNetChangesAndSettlesThem() {
+        hotCounters.addLikes(1L, 1);
+        hotCounters.addLikes(1L, 1);
+        hotCounters.addComments(2L, -1);
+
+        AtomicInteger pendingDuringUpdate = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<long[]> batch = invocation.getArgument(0);
+            assertEquals(2, batch.size());
+            pendingDuringUpdate.set(hotCounters.pendingLikes(1L));
+            return null;
+        }).when(postJdbcRepository).adjustCounters(anyList());
+
+        hotCounters.flush();
+
+        // In flight until the commit, settled right after it
+        assertEquals(2, pendingDuringUpdate.get());
+        assertEquals(0, hotCounters.pendingLikes(1L));
+        assertEquals(0, hotCounters.pendingComments(2L));
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForTheNextRun() {
+        hotCounters.addLikes(1L, 3);
+        doThrow(new IllegalStateException("down")).when(postJdbcRepository).adjustCounters(anyList());
+
+        hotCounters.flush();
+
+        assertEquals(3, hotCounters.pendingLikes(1L));
+    }
+
+    @Test
+    void idleFlushWritesNothing() {
+        hotCounters.flush();
+
+        verify(postJdbcRepository, never()).adjustCounters(anyList());
+    }
+
+    @Test
+    void readRunsTheReaderWithThePostsStable() {
+        hotCounters.addLikes(1L, 2);
+
+        int count = hotCounters.read(List.of(1L, 2L), () -> 10 + hotCounters.pendingLikes(1L));
+
+        assertEquals(12, count);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    // Runs synchronizations like a real manager, without a resource behind it
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
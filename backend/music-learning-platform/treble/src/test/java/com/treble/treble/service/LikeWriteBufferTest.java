@@ -0,0 +1,210 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.LikeJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeWriteBufferTest {
+
+    private static final Long POST = 1L;
+    private static final Long OWNER = 5L;
+    private static final Long USER = 7L;
+
+    private final LikeJdbcRepository likeJdbcRepository = mock(LikeJdbcRepository.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final LikeIndex likeIndex = mock(LikeIndex.class);
+    private final RankedFeedIndex rankedFeedIndex = mock(RankedFeedIndex.class);
+    private LikeWriteBuffer buffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        stubRowsChangeAsAsked();
+
+        buffer = new LikeWriteBuffer();
+        ReflectionTestUtils.setField(buffer, "likeJdbcRepository", likeJdbcRepository);
+        ReflectionTestUtils.setField(buffer, "notificationService", notificationService);
+        ReflectionTestUtils.setField(buffer, "rankedFeedIndex", rankedFeedIndex);
+        ReflectionTestUtils.setField(buffer, "likeIndex", likeIndex);
+        ReflectionTestUtils.setField(buffer, "contentVersions", mock(ContentVersions.class));
+        ReflectionTestUtils.setField(buffer, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(buffer, "meterRegistry", new SimpleMeterRegistry());
+        buffer.init();
+    }
+
+    @Test
+    void recordShowsTheIntentBeforeItIsFlushed() {
+        assertTrue(buffer.record(POST, USER, OWNER, true, false));
+
+        assertEquals(Boolean.TRUE, buffer.bufferedState(POST, USER));
+        assertEquals(1, buffer.unappliedDelta(POST));
+    }
+
+    @Test
+    void repeatingTheCurrentStateIsANoOp() {
+        assertFalse(buffer.record(POST, USER, OWNER, true, true));
+        assertNull(buffer.bufferedState(POST, USER));
+
+        buffer.record(POST, USER, OWNER, true, false);
+        assertFalse(buffer.record(POST, USER, OWNER, true, false));
+        assertEquals(1, buffer.unappliedDelta(POST));
+    }
+
+    @Test
+    void likeThenUnlikeNeverReachesTheDatabase() {
+        buffer.record(POST, USER, OWNER, true, false);
+        buffer.record(POST, USER, OWNER, false, false);
+
+        buffer.flush();
+
+        verify(likeJdbcRepository).insertLikes(argThat(List::isEmpty), any());
+        verify(likeJdbcRepository).deleteLikes(argThat(List::isEmpty));
+        verify(notificationService, never()).createLikeNotification(anyLong(), anyLong(), anyLong());
+        assertEquals(0, buffer.unappliedDelta(POST));
+        assertNull(buffer.bufferedState(POST, USER));
+    }
+
+    @Test
+    void flushWritesRowsCountersAndNotifications() {
+        when(likeJdbcRepository.findExisting(anyList())).thenReturn(List.of(new long[]{2L, USER}));
+        buffer.record(POST, USER, OWNER, true, false);
+        buffer.record(POST, 8L, OWNER, true, false);
+        buffer.record(2L, USER, OWNER, false, true);
+
+        buffer.flush();
+
+        verify(likeJdbcRepository).adjustLikeCounts(Map.of(POST, 2, 2L, -1));
+        verify(notificationService).createLikeNotification(OWNER, USER, POST);
+        verify(notificationService).createLikeNotification(OWNER, 8L, POST);
+        verify(likeIndex).recordLike(POST, USER);
+        verify(likeIndex).recordUnlike(2L, USER);
+        verify(rankedFeedIndex).recordLikes(POST, 2);
+        assertEquals(0, buffer.unappliedDelta(POST));
+        assertEquals(0, buffer.unappliedDelta(2L));
+        assertNull(buffer.bufferedState(POST, USER));
+    }
+
+    @Test
+    void rowsThatAlreadyExistAreNotCountedOrNotified() {
+        // Another node inserted the like between the read and the flush
+        when(likeJdbcRepository.findExisting(anyList())).thenReturn(List.of(new long[]{POST, USER}));
+        buffer.record(POST, USER, OWNER, true, false);
+
+        buffer.flush();
+
+        verify(likeJdbcRepository).adjustLikeCounts(Map.of());
+        verify(notificationService, never()).createLikeNotification(anyLong(), anyLong(), anyLong());
+        assertEquals(0, buffer.unappliedDelta(POST));
+    }
+
+    @Test
+    void failedFlushKeepsTheIntentForTheNextRun() {
+        doThrow(new IllegalStateException("down")).when(likeJdbcRepository).adjustLikeCounts(any());
+        buffer.record(POST, USER, OWNER, true, false);
+
+        buffer.flush();
+
+        assertEquals(Boolean.TRUE, buffer.bufferedState(POST, USER));
+        assertEquals(1, buffer.unappliedDelta(POST));
+        verify(likeIndex, never()).recordLike(anyLong(), anyLong());
+
+        reset(likeJdbcRepository);
+        stubRowsChangeAsAsked();
+        buffer.flush();
+
+        verify(likeJdbcRepository).adjustLikeCounts(Map.of(POST, 1));
+        assertEquals(0, buffer.unappliedDelta(POST));
+        assertNull(buffer.bufferedState(POST, USER));
+    }
+
+    @Test
+    void failedFlushRebasesAnIntentRecordedMeanwhile() {
+        buffer.record(POST, USER, OWNER, true, false);
+        doAnswer(invocation -> {
+            // The user unlikes while the like is being written
+            buffer.record(POST, USER, OWNER, false, true);
+            throw new IllegalStateException("down");
+        }).when(likeJdbcRepository).adjustLikeCounts(any());
+
+        buffer.flush();
+
+        // Nothing was committed, so the like and the unlike cancel out
+        assertEquals(Boolean.FALSE, buffer.bufferedState(POST, USER));
+        assertEquals(0, buffer.unappliedDelta(POST));
+
+        reset(likeJdbcRepository);
+        stubRowsChangeAsAsked();
+        buffer.flush();
+
+        verify(likeJdbcRepository).insertLikes(argThat(List::isEmpty), any());
+        verify(likeJdbcRepository).deleteLikes(argThat(List::isEmpty));
+        assertEquals(0, buffer.unappliedDelta(POST));
+        assertNull(buffer.bufferedState(POST, USER));
+    }
+
+    @Test
+    void failedFlushKeepsAFollowUpIntentThatChangesTheState() {
+        buffer.record(POST, USER, OWNER, false, true);
+        doAnswer(invocation -> {
+            // Unliked, then liked and unliked again during the flush: still an unlike
+            buffer.record(POST, USER, OWNER, true, false);
+            buffer.record(POST, USER, OWNER, false, false);
+            throw new IllegalStateException("down");
+        }).when(likeJdbcRepository).adjustLikeCounts(any());
+
+        buffer.flush();
+
+        assertEquals(Boolean.FALSE, buffer.bufferedState(POST, USER));
+        assertEquals(-1, buffer.unappliedDelta(POST));
+    }
+
+    @Test
+    void idleFlushDoesNothing() {
+        buffer.flush();
+
+        verify(likeJdbcRepository, never()).insertLikes(anyList(), any());
+    }
+
+    // Every pair asked for is reported as changed, and none exist beforehand
+    private void stubRowsChangeAsAsked() {
+        when(likeJdbcRepository.findExisting(anyList())).thenReturn(List.of());
+        when(likeJdbcRepository.insertLikes(anyList(), any())).thenAnswer(invocation -> allTrue(invocation.getArgument(0)));
+        when(likeJdbcRepository.deleteLikes(anyList())).thenAnswer(invocation -> allTrue(invocation.getArgument(0)));
+    }
+
+    private static boolean[] allTrue(List<?> pairs) {
+        boolean[] changed = new boolean[pairs.size()];
+        Arrays.fill(changed, true);
+        return changed;
+    }
+}
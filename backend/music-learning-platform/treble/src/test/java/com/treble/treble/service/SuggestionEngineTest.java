@@ -0,0 +1,179 @@
+package com.treble.treble.service;
+
+import com.treble.treble.repository.FollowJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SuggestionEngineTest {
+
+    private final List<long[]> edges = new ArrayList<>();
+    private SuggestionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        FollowJdbcRepository followJdbcRepository = mock(FollowJdbcRepository.class);
+        doAnswer(invocation -> {
+            FollowJdbcRepository.EdgeHandler handler = invocation.getArgument(0);
+            edges.forEach(edge -> handler.edge(edge[0], edge[1]));
+            return null;
+        }).when(followJdbcRepository).forEachEdge(any());
+
+        engine = new SuggestionEngine();
+        ReflectionTestUtils.setField(engine, "followJdbcRepository", followJdbcRepository);
+        ReflectionTestUtils.setField(engine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "maxPerFollowee", 1000);
+        engine.init();
+    }
+
+    @Test
+    void ranksFriendsOfFriendsByMutualCount() {
+        // 1 follows 2 and 3; both follow 4, only 3 follows 5; 1 already follows 2
+        follow(1, 2);
+        follow(1, 3);
+        follow(2, 4);
+        follow(3, 4);
+        follow(3, 5);
+        follow(3, 2);
+        follow(2, 1);
+        engine.rebuild();
+
+        List<SuggestionEngine.Suggestion> suggestions = engine.suggest(1, 10);
+
+        assertEquals(List.of(4L, 5L), userIds(suggestions));
+        assertEquals(2, suggestions.get(0).getMutualCount());
+        assertEquals(1, suggestions.get(1).getMutualCount());
+    }
+
+    @Test
+    void limitKeepsTheBestCandidates() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(2, 4);
+        follow(3, 4);
+        follow(2, 5);
+        follow(2, 6);
+        engine.rebuild();
+
+        assertEquals(List.of(4L), userIds(engine.suggest(1, 1)));
+    }
+
+    @Test
+    void fallsBackToMostFollowedAccounts() {
+        follow(2, 4);
+        follow(3, 4);
+        follow(2, 3);
+        engine.rebuild();
+
+        // User 9 is not in the graph at all
+        List<SuggestionEngine.Suggestion> suggestions = engine.suggest(9, 10);
+
+        assertEquals(List.of(4L, 3L), userIds(suggestions));
+        assertTrue(suggestions.stream().allMatch(suggestion -> suggestion.getMutualCount() == 0));
+    }
+
+    @Test
+    void nothingIsSuggestedBeforeTheFirstBuild() {
+        assertTrue(engine.suggest(1, 10).isEmpty());
+    }
+
+    @Test
+    void overlayAppliesFollowsSinceTheSnapshot() {
+        follow(2, 4);
+        follow(3, 5);
+        follow(1, 2);
+        engine.rebuild();
+
+        // New followee contributes its row, and a followee's new follow counts as a mutual
+        engine.recordFollow(1L, 3L, true);
+        engine.recordFollow(2L, 5L, true);
+
+        List<SuggestionEngine.Suggestion> suggestions = engine.suggest(1, 10);
+
+        assertEquals(List.of(5L, 4L), userIds(suggestions));
+        assertEquals(2, suggestions.get(0).getMutualCount());
+    }
+
+    @Test
+    void overlayAppliesUnfollowsSinceTheSnapshot() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(2, 4);
+        follow(3, 4);
+        follow(3, 5);
+        engine.rebuild();
+
+        // 3 unfollows 4, and 1 stops following 3 altogether
+        engine.recordFollow(3L, 4L, false);
+        assertEquals(1, engine.suggest(1, 10).get(0).getMutualCount());
+
+        engine.recordFollow(1L, 3L, false);
+        List<SuggestionEngine.Suggestion> suggestions = engine.suggest(1, 10);
+        assertEquals(List.of(4L), userIds(suggestions));
+        assertEquals(1, suggestions.get(0).getMutualCount());
+    }
+
+    @Test
+    void rebuildDropsChangesTheSnapshotAlreadyHas() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(3, 5);
+        engine.rebuild();
+
+        engine.recordFollow(2L, 5L, true);
+        follow(2, 5);
+        engine.rebuild();
+
+        // Counted once from the snapshot, not again from the overlay
+        assertEquals(2, engine.suggest(1, 10).get(0).getMutualCount());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(engine, "changes")).isEmpty());
+    }
+
+    @Test
+    void gatherIsCappedPerFollowee() {
+        ReflectionTestUtils.setField(engine, "maxPerFollowee", 2);
+        follow(1, 2);
+        for (long candidate = 10; candidate < 20; candidate++) {
+            follow(2, candidate);
+        }
+        engine.rebuild();
+
+        // Rows are sorted by id, so the cap keeps the two lowest ids
+        assertEquals(List.of(10L, 11L), userIds(engine.suggest(1, 10)));
+    }
+
+    @Test
+    void buildsLargeGraphsAcrossForkJoinTasks() {
+        // Enough followees to split the gather into several tasks
+        for (long followee = 100; followee < 400; followee++) {
+            follow(1, followee);
+            follow(followee, 1000 + followee % 7);
+        }
+        engine.rebuild();
+
+        List<SuggestionEngine.Suggestion> suggestions = engine.suggest(1, 7);
+
+        assertEquals(7, suggestions.size());
+        assertEquals(300, suggestions.stream().mapToInt(SuggestionEngine.Suggestion::getMutualCount).sum());
+    }
+
+    private void follow(long followerId, long userId) {
+        edges.add(new long[]{followerId, userId});
+    }
+
+    private static List<Long> userIds(List<SuggestionEngine.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionEngine.Suggestion::getUserId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,113 @@
+package com.treble.treble.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimelineCacheTest {
+
+    private TimelineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TimelineCache();
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "capacity", 3);
+        ReflectionTestUtils.setField(cache, "maxUsers", 4);
+        ReflectionTestUtils.setField(cache, "stripeCount", 2);
+        cache.init();
+    }
+
+    @Test
+    void fillIsServedNewestFirst() {
+        assertTrue(cache.put(1L, List.of(30L, 20L, 10L), false, cache.beginFill(1L)));
+
+        assertArrayEquals(new long[]{30L, 20L}, cache.getNewest(1L, 2));
+    }
+
+    @Test
+    void fillIsDroppedWhenAPostArrivesDuringTheRead() {
+        long token = cache.beginFill(1L);
+        // Fanned out after the database read started
+        cache.pushIfPresent(1L, 40L);
+
+        assertFalse(cache.put(1L, List.of(30L, 20L), true, token));
+        assertNull(cache.getNewest(1L, 2));
+    }
+
+    @Test
+    void fillIsDroppedAfterInvalidation() {
+        long token = cache.beginFill(1L);
+        cache.invalidate(1L);
+
+        assertFalse(cache.put(1L, List.of(30L), true, token));
+    }
+
+    @Test
+    void onlyTheLatestFillIsKept() {
+        long first = cache.beginFill(1L);
+        long second = cache.beginFill(1L);
+
+        assertFalse(cache.put(1L, List.of(10L), true, first));
+        assertTrue(cache.put(1L, List.of(20L), true, second));
+    }
+
+    @Test
+    void pendingFillsAreReportedAsResident() {
+        cache.beginFill(1L);
+
+        assertTrue(cache.residentUserIds().contains(1L));
+    }
+
+    @Test
+    void removeRewritesOnlySlotsHoldingThePost() {
+        cache.put(1L, List.of(30L, 20L, 10L), false, cache.beginFill(1L));
+        cache.put(2L, List.of(20L), true, cache.beginFill(2L));
+        cache.put(3L, List.of(50L), true, cache.beginFill(3L));
+
+        cache.remove(20L);
+
+        assertArrayEquals(new long[]{30L, 10L}, cache.getNewest(1L, 2));
+        assertArrayEquals(new long[0], cache.getNewest(2L, 1));
+        assertArrayEquals(new long[]{50L}, cache.getNewest(3L, 1));
+    }
+
+    @Test
+    void idsPushedOutOfTheRingAreUnindexed() {
+        cache.put(1L, List.of(30L, 20L, 10L), true, cache.beginFill(1L));
+        cache.pushIfPresent(1L, 40L);
+        // 10 fell off the ring, so removing it leaves the slot alone
+        cache.remove(10L);
+
+        assertArrayEquals(new long[]{40L, 30L, 20L}, cache.getNewest(1L, 3));
+        // The full ring dropped an id, so the slot no longer holds the whole timeline
+        assertNull(cache.getNewest(1L, 4));
+    }
+
+    @Test
+    void duplicatePushesAreIgnored() {
+        cache.put(1L, List.of(20L, 10L), true, cache.beginFill(1L));
+        cache.pushIfPresent(1L, 20L);
+
+        assertArrayEquals(new long[]{20L, 10L}, cache.getNewest(1L, 3));
+    }
+
+    @Test
+    void leastRecentlyReadUserIsEvictedFromAFullStripe() {
+        // Two slots per stripe; fill until some stripe has to evict
+        for (long userId = 1; userId <= 8; userId++) {
+            cache.put(userId, List.of(userId * 10), true, cache.beginFill(userId));
+        }
+
+        assertTrue(cache.residentUsers() <= 4);
+        assertArrayEquals(new long[]{80L}, cache.getNewest(8L, 1));
+    }
+}
@@ -0,0 +1,124 @@
+package com.treble.treble.service;
+
+import com.treble.treble.model.Post;
+import com.treble.treble.repository.PostRepository;
+import com.treble.treble.repository.TimelineEntryRepository;
+import com.treble.treble.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimelineServiceTest {
+
+    private static final Long USER = 1L;
+    private static final Long AUTHOR = 2L;
+
+    private final TimelineEntryRepository timelineEntryRepository = mock(TimelineEntryRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private TimelineCache timelineCache;
+    private TimelineService timelineService;
+
+    @BeforeEach
+    void setUp() {
+        timelineCache = new TimelineCache();
+        ReflectionTestUtils.setField(timelineCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(timelineCache, "capacity", 10);
+        ReflectionTestUtils.setField(timelineCache, "maxUsers", 4);
+        ReflectionTestUtils.setField(timelineCache, "stripeCount", 2);
+        timelineCache.init();
+
+        timelineService = new TimelineService();
+        ReflectionTestUtils.setField(timelineService, "timelineEntryRepository", timelineEntryRepository);
+        ReflectionTestUtils.setField(timelineService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(timelineService, "userRepository", mock(UserRepository.class));
+        ReflectionTestUtils.setField(timelineService, "highFollowerRegistry", mock(HighFollowerRegistry.class));
+        ReflectionTestUtils.setField(timelineService, "timelineCache", timelineCache);
+        ReflectionTestUtils.setField(timelineService, "backfillSize", 50);
+
+        Post recent = new Post();
+        recent.setId(20L);
+        recent.setUserId(AUTHOR);
+        recent.setCreatedAt(LocalDateTime.now());
+        when(postRepository.findByUserIdOrderByCreatedAtDescIdDesc(eq(AUTHOR), any())).thenReturn(List.of(recent));
+        when(timelineEntryRepository.findExistingPostIds(eq(USER), anyList())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void fillStoredBeforeTheBackfillCommitsIsDropped() {
+        long token = timelineCache.beginFill(USER);
+        TransactionSynchronizationManager.initSynchronization();
+        timelineService.backfillAuthor(USER, AUTHOR);
+
+        // The fill read the timeline before the backfilled entries were visible
+        assertTrue(timelineCache.put(USER, List.of(10L), true, token));
+        commit();
+
+        assertNull(timelineCache.getNewest(USER, 1));
+    }
+
+    @Test
+    void fillStoredAfterTheBackfillCommitsIsRejected() {
+        long token = timelineCache.beginFill(USER);
+        TransactionSynchronizationManager.initSynchronization();
+        timelineService.backfillAuthor(USER, AUTHOR);
+        commit();
+
+        assertFalse(timelineCache.put(USER, List.of(10L), true, token));
+        assertNull(timelineCache.getNewest(USER, 1));
+    }
+
+    @Test
+    void fillStartedAfterTheBackfillCommitsIsKept() {
+        TransactionSynchronizationManager.initSynchronization();
+        timelineService.backfillAuthor(USER, AUTHOR);
+        commit();
+
+        assertTrue(timelineCache.put(USER, List.of(20L, 10L), true, timelineCache.beginFill(USER)));
+        assertArrayEquals(new long[]{20L, 10L}, timelineCache.getNewest(USER, 2));
+    }
+
+    @Test
+    void fillStoredBeforeAnUnfollowCommitsIsDropped() {
+        long token = timelineCache.beginFill(USER);
+        TransactionSynchronizationManager.initSynchronization();
+        timelineService.removeAuthor(USER, AUTHOR);
+
+        // Still holds the unfollowed author's post
+        timelineCache.put(USER, List.of(20L, 10L), true, token);
+        commit();
+
+        assertNull(timelineCache.getNewest(USER, 1));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+}
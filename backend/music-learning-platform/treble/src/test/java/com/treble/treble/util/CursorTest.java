@@ -0,0 +1,69 @@
+package com.treble.treble.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+    @Test
+    void roundTripsCreatedAtAndId() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 9, 17, 45, 12, 123456000);
+
+        Cursor decoded = Cursor.decode(new Cursor(createdAt, 42L).encode());
+
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void roundTripsWholeSeconds() {
+        // LocalDateTime drops ":00" seconds from its string form
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 9, 17, 45);
+
+        assertEquals(createdAt, Cursor.decode(new Cursor(createdAt, 1L).encode()).getCreatedAt());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new Cursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59), Long.MAX_VALUE).encode();
+
+        assertFalse(token.contains("+") || token.contains("/") || token.contains("="));
+    }
+
+    @Test
+    void missingCursorStartsFromTheNewestRow() {
+        assertNull(Cursor.decode(null));
+        assertNull(Cursor.decode(" "));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decode(Cursor.encodeId(5L)));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decode(
+                Base64.getUrlEncoder().encodeToString("yesterday|5".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void idCursorsRoundTrip() {
+        assertEquals(987654321L, Cursor.decodeId(Cursor.encodeId(987654321L)));
+        assertEquals(0L, Cursor.decodeId(null));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decodeId("abc"));
+    }
+
+    @Test
+    void pageSizeIsClamped() {
+        assertEquals(Cursor.DEFAULT_PAGE_SIZE, Cursor.clampPageSize(null));
+        assertEquals(Cursor.MAX_PAGE_SIZE, Cursor.clampPageSize(1000));
+        assertEquals(7, Cursor.clampPageSize(7));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.clampPageSize(0));
+    }
+}
@@ -30,7 +30,7 @@ const LikeButton = ({ postId, userId, initialLikeCount, initialHasLiked, isOwner
         setHasLiked(false)
       } else {
         // Like post
-        await api.post(`/likes/post/${postId}/user/${userId}`)
+        await api.put(`/likes/post/${postId}/user/${userId}`)
         setLikeCount((prev) => prev + 1)
         setHasLiked(true)
       }
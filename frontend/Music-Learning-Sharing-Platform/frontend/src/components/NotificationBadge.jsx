@@ -18,12 +18,19 @@ const NotificationBadge = ({ userId }) => {
       }
     }
 
-    fetchUnreadCount()
-
-    // Set up polling to check for new notifications every 30 seconds
-    const intervalId = setInterval(fetchUnreadCount, 30000)
-
-    return () => clearInterval(intervalId)
+    // The server pushes the count on connect and whenever it changes; EventSource reconnects on its own
+    const source = new EventSource(`${api.defaults.baseURL}/notifications/stream/user/${userId}`)
+    source.addEventListener("unread-count", (event) => {
+      setUnreadCount(JSON.parse(event.data).count)
+    })
+
+    // Changes made on another server node are not pushed, so revalidate now and then
+    const intervalId = setInterval(fetchUnreadCount, 300000)
+
+    return () => {
+      source.close()
+      clearInterval(intervalId)
+    }
   }, [userId])
 
   if (unreadCount === 0) return null
@@ -27,13 +27,12 @@ export default function Profile() {
 
         // Check if current logged-in user is following this profile
         const currentUserId = localStorage.getItem("userId")
-        if (currentUserId) {
-          // Check if this user is in the followers list
-          const isFollowing = res.data.followerIds.includes(Number.parseInt(currentUserId))
-          setIsFollowing(isFollowing)
+        if (currentUserId && currentUserId !== String(res.data.id)) {
+          const followRes = await api.get(`/users/${currentUserId}/follows/${id}`)
+          setIsFollowing(followRes.data.following)
         }
 
-        setFollowCount(res.data.followerIds.length)
+        setFollowCount(res.data.followerCount)
         setLoading(false)
       } catch (error) {
         console.error("Error fetching user data:", error)